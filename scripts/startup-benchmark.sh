@@ -0,0 +1,91 @@
+#!/usr/bin/env bash
+#
+# 启动耗时与内存对比
+#   jar      : 当前的可执行 jar（java -jar）
+#   aot      : Spring AOT 生成的 Bean 定义（-Dspring.aot.enabled=true）
+#   aot+cds  : AOT + 训练运行生成的 CDS 归档（-XX:SharedArchiveFile）
+#
+# 用法：scripts/startup-benchmark.sh [应用参数...]
+#   例如 scripts/startup-benchmark.sh --spring.datasource.password=xxx
+#   训练运行会完整刷新上下文（包括连接数据库和 Flyway 校验），需要数据库可用。
+#
+# 环境变量：
+#   RUNS=3          每种模式的启动次数
+#   SKIP_BUILD=1    跳过 mvn -Pfast-start package
+#   JAVA=java       使用的 java 命令
+#
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${RUNS:-3}"
+JAVA="${JAVA:-java}"
+MAIN_CLASS="com.example.loginsystem.LoginSystemApplication"
+WORK_DIR="target/fast-start"
+ARCHIVE="$WORK_DIR/application.jsa"
+STARTED_PATTERN='Started LoginSystemApplication in ([0-9.]+) seconds'
+
+if [[ "${SKIP_BUILD:-0}" != "1" ]]; then
+    ./mvnw -B -q -Pfast-start -DskipTests package
+fi
+
+JAR="$(ls target/login-system-*.jar | head -n 1)"
+
+# CDS 只能归档来自 jar 文件的类，且运行时的类路径必须与训练时一致，
+# 因此使用未重新打包的应用 jar 加上逐个列出的依赖 jar，而不是可执行 jar 或通配符
+rm -rf "$WORK_DIR"
+mkdir -p "$WORK_DIR"
+cp "$JAR.original" "$WORK_DIR/application.jar"
+CLASSPATH="$WORK_DIR/application.jar"
+for lib in target/dependency/*.jar; do
+    CLASSPATH="$CLASSPATH:$lib"
+done
+
+echo "==> 训练运行，生成 CDS 归档: $ARCHIVE"
+"$JAVA" -XX:ArchiveClassesAtExit="$ARCHIVE" \
+    -Dspring.aot.enabled=true \
+    -Dspring.context.exit=onRefresh \
+    -cp "$CLASSPATH" "$MAIN_CLASS" --server.port=0 "$@" > "$WORK_DIR/training.log" 2>&1 || {
+    echo "训练运行失败，日志见 $WORK_DIR/training.log" >&2
+    exit 1
+}
+
+# 启动一次，输出 "启动耗时(秒) RSS(MB)"
+measure() {
+    local log="$WORK_DIR/run.log"
+    "$@" > "$log" 2>&1 &
+    local pid=$!
+    local seconds=""
+    for _ in $(seq 1 600); do
+        if seconds="$(grep -oE "$STARTED_PATTERN" "$log" | grep -oE '[0-9.]+' | head -n 1)" && [[ -n "$seconds" ]]; then
+            break
+        fi
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "应用启动失败，日志见 $log" >&2
+            return 1
+        fi
+        sleep 0.1
+    done
+    local rss_kb
+    rss_kb="$(awk '/^VmRSS:/ {print $2}' "/proc/$pid/status")"
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$seconds $((rss_kb / 1024))"
+}
+
+run_mode() {
+    local mode="$1"
+    shift
+    local results=()
+    for _ in $(seq 1 "$RUNS"); do
+        results+=("$(measure "$@")")
+    done
+    printf '%s\n' "${results[@]}" | awk -v mode="$mode" \
+        '{ t += $1; r += $2 } END { printf "%-10s %10.3f %10d\n", mode, t / NR, r / NR }'
+}
+
+printf '%-10s %10s %10s\n' "mode" "startup(s)" "RSS(MB)"
+run_mode "jar" "$JAVA" -jar "$JAR" --server.port=0 "$@"
+run_mode "aot" "$JAVA" -Dspring.aot.enabled=true -cp "$CLASSPATH" "$MAIN_CLASS" --server.port=0 "$@"
+run_mode "aot+cds" "$JAVA" -XX:SharedArchiveFile="$ARCHIVE" -Dspring.aot.enabled=true \
+    -cp "$CLASSPATH" "$MAIN_CLASS" --server.port=0 "$@"
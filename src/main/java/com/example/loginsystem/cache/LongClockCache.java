@@ -0,0 +1,324 @@
+package com.example.loginsystem.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * long 键的定长缓存：开放寻址（线性探测）+ CLOCK 淘汰 + 分段锁
+ * 键、值和访问位分别存放在数组中，没有装箱的键和节点对象；容量固定，不扩容。
+ * <p>
+ * 读取先走 StampedLock 的乐观读，无写入冲突时不加锁、不写共享计数，只在命中后置访问位；
+ * 写入和淘汰持有所在分段的写锁。每个分段维护一个纪元，失效和更新时递增：
+ * 未命中的调用方先取 {@link #epoch} 再查询数据源，回填时若纪元已变则放弃，避免把失效前读到的旧值写回缓存。
+ * <p>
+ * 键不能为0（0表示空位）。
+ */
+public final class LongClockCache<V> {
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+
+    /**
+     * 容量平均分给各分段，某个分段写满时只在该分段内淘汰，因此总条目数略低于 maxEntries 时就可能开始淘汰
+     * @param maxEntries 最多缓存的条目数
+     * @param stripeCount 分段数，向上取为2的幂
+     */
+    public LongClockCache(int maxEntries, int stripeCount) {
+        if (maxEntries < 1 || stripeCount < 1) {
+            throw new IllegalArgumentException("缓存容量和分段数必须大于0");
+        }
+        int stripeBits = 32 - Integer.numberOfLeadingZeros(stripeCount - 1);
+        int perStripe = Math.max(1, (maxEntries + (1 << stripeBits) - 1) >> stripeBits);
+        // 装载因子不超过 0.5，探测链保持很短
+        int slotBits = 32 - Integer.numberOfLeadingZeros(Math.max(2, perStripe * 2) - 1);
+        stripes = new Stripe[1 << stripeBits];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(1 << slotBits, perStripe, 64 - stripeBits - slotBits);
+        }
+        stripeShift = 64 - stripeBits;
+    }
+
+    /**
+     * 查找键对应的值并标记为最近访问
+     * @return 值，不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0) {
+            return null;
+        }
+        long hash = hash(key);
+        Stripe stripe = stripeOf(hash);
+        int home = stripe.slotOf(hash);
+
+        long stamp = stripe.lock.tryOptimisticRead();
+        int index = stripe.find(key, home);
+        Object value = index >= 0 ? stripe.values[index] : null;
+        if (!stripe.lock.validate(stamp)) {
+            stamp = stripe.lock.readLock();
+            try {
+                index = stripe.find(key, home);
+                value = index >= 0 ? stripe.values[index] : null;
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        if (index >= 0) {
+            // 访问位允许竞争：并发淘汰时偶尔置错位只影响淘汰顺序
+            stripe.referenced[index] = true;
+        }
+        return (V) value;
+    }
+
+    /**
+     * 键所在分段的当前纪元，未命中时在查询数据源之前读取，回填时传给 {@link #putIfUnchanged}
+     */
+    public long epoch(long key) {
+        return stripeOf(hash(key)).epoch;
+    }
+
+    /**
+     * 纪元未变化时写入（回填），已满时按 CLOCK 淘汰一条
+     * @return 是否写入
+     */
+    public boolean putIfUnchanged(long key, V value, long epoch) {
+        if (key == 0) {
+            return false;
+        }
+        long hash = hash(key);
+        Stripe stripe = stripeOf(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            if (stripe.epoch != epoch) {
+                return false;
+            }
+            stripe.put(key, value, stripe.slotOf(hash));
+            return true;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 写入，已满时按 CLOCK 淘汰一条
+     */
+    public void put(long key, V value) {
+        if (key == 0) {
+            return;
+        }
+        long hash = hash(key);
+        Stripe stripe = stripeOf(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            stripe.put(key, value, stripe.slotOf(hash));
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 已缓存时就地替换为新值（updater 返回null时删除），并使进行中的回填失效
+     */
+    @SuppressWarnings("unchecked")
+    public void update(long key, UnaryOperator<V> updater) {
+        if (key == 0) {
+            return;
+        }
+        long hash = hash(key);
+        Stripe stripe = stripeOf(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            stripe.epoch++;
+            int index = stripe.find(key, stripe.slotOf(hash));
+            if (index >= 0) {
+                V updated = updater.apply((V) stripe.values[index]);
+                if (updated != null) {
+                    stripe.values[index] = updated;
+                } else {
+                    stripe.removeAt(index);
+                }
+            }
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 删除，并使进行中的回填失效
+     */
+    public void invalidate(long key) {
+        if (key == 0) {
+            return;
+        }
+        long hash = hash(key);
+        Stripe stripe = stripeOf(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            stripe.epoch++;
+            int index = stripe.find(key, stripe.slotOf(hash));
+            if (index >= 0) {
+                stripe.removeAt(index);
+            }
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.writeLock();
+            try {
+                stripe.epoch++;
+                Arrays.fill(stripe.keys, 0);
+                Arrays.fill(stripe.values, null);
+                Arrays.fill(stripe.referenced, false);
+                stripe.size = 0;
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * 当前条目数（不加锁，近似值）
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    /**
+     * 最多缓存的条目数
+     */
+    public int capacity() {
+        return stripes.length * stripes[0].maxSize;
+    }
+
+    private static long hash(long key) {
+        // Fibonacci 哈希，高位选分段，其后的位选槽位，连续的自增ID也能均匀分布
+        return key * 0x9E3779B97F4A7C15L;
+    }
+
+    private Stripe stripeOf(long hash) {
+        // 只有一个分段时移位数为64，Java 中等同于不移位，需要再取掩码
+        return stripes[(int) (hash >>> stripeShift) & (stripes.length - 1)];
+    }
+
+    /**
+     * 一个分段：独立的开放寻址表、CLOCK 指针和纪元，由写锁保护
+     */
+    private static final class Stripe {
+
+        final StampedLock lock = new StampedLock();
+        final long[] keys;
+        final Object[] values;
+        final boolean[] referenced;
+        final int mask;
+        final int maxSize;
+        final int slotShift;
+
+        int size;
+        int hand;
+        volatile long epoch;
+
+        Stripe(int slots, int maxSize, int slotShift) {
+            keys = new long[slots];
+            values = new Object[slots];
+            referenced = new boolean[slots];
+            mask = slots - 1;
+            this.maxSize = maxSize;
+            this.slotShift = slotShift;
+        }
+
+        /**
+         * 乐观读时数组可能正被修改，探测步数以表长为上限，结果由调用方校验
+         */
+        int find(long key, int home) {
+            int index = home;
+            for (int probes = 0; probes <= mask; probes++) {
+                long current = keys[index];
+                if (current == key) {
+                    return index;
+                }
+                if (current == 0) {
+                    return -1;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        void put(long key, Object value, int home) {
+            int index = find(key, home);
+            if (index >= 0) {
+                values[index] = value;
+                referenced[index] = true;
+                return;
+            }
+            if (size >= maxSize) {
+                evict();
+            }
+            index = home;
+            while (keys[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            // 新条目不置访问位，只访问过一次的条目在下一轮就被淘汰
+            values[index] = value;
+            referenced[index] = false;
+            keys[index] = key;
+            size++;
+        }
+
+        /**
+         * CLOCK：指针扫过的条目有访问位时清除并跳过，没有时淘汰
+         */
+        void evict() {
+            while (true) {
+                int index = hand;
+                hand = (hand + 1) & mask;
+                if (keys[index] == 0) {
+                    continue;
+                }
+                if (referenced[index]) {
+                    referenced[index] = false;
+                    continue;
+                }
+                removeAt(index);
+                return;
+            }
+        }
+
+        /**
+         * 删除并回移后续元素，不留墓碑
+         */
+        void removeAt(int index) {
+            int gap = index;
+            int next = (gap + 1) & mask;
+            while (keys[next] != 0) {
+                int home = slotOf(hash(keys[next]));
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    referenced[gap] = referenced[next];
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[gap] = 0;
+            values[gap] = null;
+            referenced[gap] = false;
+            size--;
+        }
+
+        /**
+         * 槽位取哈希中紧随分段位之后的 log2(slots) 位
+         */
+        int slotOf(long hash) {
+            return (int) (hash >>> slotShift) & mask;
+        }
+    }
+}
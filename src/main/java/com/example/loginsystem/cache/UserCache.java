@@ -0,0 +1,141 @@
+package com.example.loginsystem.cache;
+
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.event.LoginActivityFlushedEvent;
+import com.example.loginsystem.event.UserChangeEvent;
+import com.example.loginsystem.event.UserInvalidationEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * 按ID查询用户的本地缓存
+ * 以 {@link LongClockCache} 保存 {@link UserSnapshot}，不经过 Spring Cache 抽象，键不装箱；
+ * 命中时返回由快照新建的 User，调用方的修改不影响缓存。
+ * <p>
+ * 本节点的写操作在事务提交后失效对应条目，其他节点的写操作由变更日志的 UserInvalidationEvent 失效，
+ * 本节点的登录统计批量回写后就地更新已缓存的快照。其他节点的登录统计不产生变更日志，
+ * 快照加载超过 ttl-seconds 后视为未命中并重新加载，过时的登录统计最多保留这么久。
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.user-cache", name = "enabled", havingValue = "true")
+public class UserCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCache.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.user-cache.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${app.user-cache.stripes:64}")
+    private int stripes;
+
+    @Value("${app.user-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private long ttlNanos;
+
+    private LongClockCache<UserSnapshot> cache;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        cache = new LongClockCache<>(maxEntries, stripes);
+        ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        FunctionCounter.builder("user.cache.hits", hits, LongAdder::sum)
+                .description("按ID查询用户的缓存命中次数")
+                .register(meterRegistry);
+        FunctionCounter.builder("user.cache.misses", misses, LongAdder::sum)
+                .description("按ID查询用户的缓存未命中次数")
+                .register(meterRegistry);
+        Gauge.builder("user.cache.size", cache, LongClockCache::size)
+                .description("按ID查询用户的缓存条目数")
+                .register(meterRegistry);
+        logger.info("用户缓存已启用，容量: {}，分段数: {}，过期时间: {} 秒", cache.capacity(), stripes, ttlSeconds);
+    }
+
+    /**
+     * 按ID获取用户，未命中或已过期时由 loader 加载后回填
+     * @param id 用户ID
+     * @param loader 从数据库加载用户，不存在时返回null（不缓存）
+     * @return 用户信息，不存在时返回null
+     */
+    public User get(long id, LongFunction<User> loader) {
+        UserSnapshot snapshot = cache.get(id);
+        if (snapshot != null && System.nanoTime() - snapshot.loadedAt() < ttlNanos) {
+            hits.increment();
+            return snapshot.toUser();
+        }
+        misses.increment();
+        // 加载期间该分段有失效或更新时放弃回填，避免写回旧值
+        long epoch = cache.epoch(id);
+        long loadedAt = System.nanoTime();
+        User user = loader.apply(id);
+        if (user != null && user.getId() != null) {
+            cache.putIfUnchanged(id, UserSnapshot.of(user, loadedAt), epoch);
+        }
+        return user;
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * 本节点的写操作：事务提交后失效
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChange(UserChangeEvent event) {
+        if (event.getUserId() != null) {
+            cache.invalidate(event.getUserId());
+        }
+    }
+
+    /**
+     * 变更日志（包括其他节点的写操作）
+     */
+    @EventListener
+    public void onInvalidation(UserInvalidationEvent event) {
+        if (event.getUserId() != null) {
+            cache.invalidate(event.getUserId());
+        }
+    }
+
+    /**
+     * 登录统计批量回写后更新已缓存的快照
+     * 回写提交后才加载的快照已包含本批次，保持不变；加载与回写重叠的无法判断，删除后重新加载。
+     */
+    @EventListener
+    public void onLoginsFlushed(LoginActivityFlushedEvent event) {
+        for (LoginActivityFlushedEvent.Login login : event.getLogins()) {
+            cache.update(login.userId(), snapshot -> {
+                if (snapshot.loadedAt() - event.getCommittedNanos() >= 0) {
+                    return snapshot;
+                }
+                return snapshot.loadedAt() - event.getStartedNanos() > 0 ? null : snapshot.withLogins(login);
+            });
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.loginsystem.cache;
+
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+import com.example.loginsystem.event.LoginActivityFlushedEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * 缓存中的用户快照（不可变，不含密码）
+ * 时间和登录次数直接引用加载时实体中的不可变对象，用户名同样共用；转换为 User 时只新建 User 本身。
+ * @param id 用户ID
+ * @param username 用户名
+ * @param role 角色
+ * @param createdAt 创建时间
+ * @param updatedAt 更新时间
+ * @param lastLoginAt 最后登录时间
+ * @param loginCount 登录次数
+ * @param loadedAt 开始从数据库加载的时间（System.nanoTime），用于过期判断和登录回写去重
+ */
+public record UserSnapshot(long id, String username, UserRole role, LocalDateTime createdAt,
+                           LocalDateTime updatedAt, LocalDateTime lastLoginAt, Long loginCount, long loadedAt) {
+
+    public static UserSnapshot of(User user, long loadedAt) {
+        return new UserSnapshot(user.getId(), user.getUsername(), user.getRole(), user.getCreatedAt(),
+                user.getUpdatedAt(), user.getLastLoginAt(), user.getLoginCount(), loadedAt);
+    }
+
+    /**
+     * 转换为不受持久化上下文管理的新实体（密码为null），调用方可以任意修改
+     */
+    public User toUser() {
+        return new User(id, username, role, createdAt, updatedAt, lastLoginAt, loginCount);
+    }
+
+    /**
+     * 累加一批登录统计后的快照
+     */
+    public UserSnapshot withLogins(LoginActivityFlushedEvent.Login login) {
+        long count = (loginCount == null ? 0 : loginCount) + login.count();
+        LocalDateTime latest = lastLoginAt == null || login.lastLoginAt().isAfter(lastLoginAt)
+                ? login.lastLoginAt() : lastLoginAt;
+        return new UserSnapshot(id, username, role, createdAt, updatedAt, latest, count, loadedAt);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.loginsystem.config;
+
+import com.example.loginsystem.monitoring.QueryMetricsListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * 数据源代理配置
+ * 用 datasource-proxy 包装应用主数据源，所有经过它的语句都会通知 {@link QueryMetricsListener}。
+ * 只包装名为 dataSource 的Bean，分片模式下各分片的物理数据源位于其下层，不会重复统计。
+ */
+@Configuration
+public class DataSourceProxyConfig {
+
+    private static final String DATA_SOURCE_BEAN_NAME = "dataSource";
+
+    /**
+     * 数据源包装器
+     * 监听器延迟获取，避免后处理器提前初始化 MeterRegistry 等Bean
+     */
+    @Bean
+    public static BeanPostProcessor dataSourceProxyPostProcessor(ObjectProvider<QueryMetricsListener> listener) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && DATA_SOURCE_BEAN_NAME.equals(beanName)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(DATA_SOURCE_BEAN_NAME)
+                            .listener(listener.getObject())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
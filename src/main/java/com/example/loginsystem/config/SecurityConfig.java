@@ -1,5 +1,6 @@
 package com.example.loginsystem.config;
 
+import com.example.loginsystem.monitoring.TracedPasswordEncoder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -23,11 +24,11 @@ public class SecurityConfig {
 
     /**
      * 密码编码器Bean
-     * 使用BCrypt加密算法
+     * 使用BCrypt加密算法，耗时计入请求追踪
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new TracedPasswordEncoder(new BCryptPasswordEncoder());
     }
 
     /**
@@ -0,0 +1,122 @@
+package com.example.loginsystem.config;
+
+import com.example.loginsystem.repository.UserRepository;
+import com.example.loginsystem.sharding.ShardRouter;
+import com.example.loginsystem.sharding.ShardRoutingDataSource;
+import com.example.loginsystem.sharding.ShardSchemaInitializer;
+import com.example.loginsystem.sharding.ShardedUserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用户表水平分片配置
+ * 开启后 spring.datasource 不再生效，改用 app.sharding.shards 中的各分片数据源；
+ * 变更日志和注册量预聚合随用户写在所在分片，其他表及未绑定分片的SQL落在分片0。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    // 跨分片并行查询线程池
+    private ExecutorService scatterExecutor;
+
+    /**
+     * 分片路由规则
+     */
+    @Bean
+    public ShardRouter shardRouter(ShardingProperties properties) {
+        return new ShardRouter(properties.getShards().size());
+    }
+
+    /**
+     * 各分片物理数据源
+     */
+    @Bean(destroyMethod = "close")
+    public ShardRoutingDataSource shardRoutingDataSource(ShardingProperties properties) {
+        List<ShardingProperties.Shard> shards = properties.getShards();
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            ShardingProperties.Shard shard = shards.get(i);
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .driverClassName(shard.getDriverClassName())
+                    .build();
+            dataSource.setPoolName("UserShard-" + i);
+            dataSource.setMaximumPoolSize(properties.getPoolSize());
+            targets.put(i, dataSource);
+        }
+
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource();
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(targets.get(0));
+        routingDataSource.afterPropertiesSet();
+        return routingDataSource;
+    }
+
+    /**
+     * 应用使用的主数据源
+     * 延迟获取物理连接，保证事务开始后设置的分片仍然生效
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    /**
+     * 在默认分片迁移并完成 Hibernate 校验之后迁移其余分片
+     */
+    @Bean
+    @DependsOn("entityManagerFactory")
+    public ShardSchemaInitializer shardSchemaInitializer(ShardRoutingDataSource shardRoutingDataSource,
+                                                         ShardRouter shardRouter) {
+        return new ShardSchemaInitializer(shardRoutingDataSource, shardRouter);
+    }
+
+    /**
+     * 分片路由后的用户仓库，注入 UserRepository 时优先使用
+     */
+    @Bean
+    @Primary
+    @DependsOn("shardSchemaInitializer")
+    public UserRepository shardedUserRepository(@Qualifier("userRepository") UserRepository userRepository,
+                                                ShardRouter shardRouter,
+                                                PlatformTransactionManager transactionManager) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        scatterExecutor = Executors.newFixedThreadPool(shardRouter.getShardCount() * 2, r -> {
+            Thread thread = new Thread(r, "user-shard-scatter-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return ShardedUserRepository.create(userRepository, shardRouter, transactionManager, scatterExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.loginsystem.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * 启动优化配置
+ * 把非关键组件（如 springdoc 文档）的 Bean 改为首次使用时才初始化，缩短启动时间。
+ */
+@Configuration
+public class StartupConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupConfig.class);
+
+    /**
+     * 将指定包下的 Bean 标记为延迟初始化
+     * 必须声明为静态方法，才能在其他 Bean 定义处理之前注册
+     */
+    @Bean
+    public static BeanFactoryPostProcessor lazyNonCriticalBeans(Environment environment) {
+        String[] packages = environment.getProperty("app.startup.lazy-packages", String[].class, new String[0]);
+        return beanFactory -> {
+            int count = 0;
+            for (String beanName : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+                String className = resolveClassName(beanFactory, definition);
+                if (className == null) {
+                    continue;
+                }
+                for (String lazyPackage : packages) {
+                    if (className.startsWith(lazyPackage + ".")) {
+                        definition.setLazyInit(true);
+                        count++;
+                        break;
+                    }
+                }
+            }
+            logger.debug("已将 {} 个非关键 Bean 设置为延迟初始化", count);
+        };
+    }
+
+    /**
+     * 普通 Bean 取自身类名，@Bean 工厂方法取所在配置类的类名
+     */
+    private static String resolveClassName(ConfigurableListableBeanFactory beanFactory, BeanDefinition definition) {
+        String factoryBeanName = definition.getFactoryBeanName();
+        if (factoryBeanName != null && beanFactory.containsBeanDefinition(factoryBeanName)) {
+            return beanFactory.getBeanDefinition(factoryBeanName).getBeanClassName();
+        }
+        return definition.getBeanClassName();
+    }
+}
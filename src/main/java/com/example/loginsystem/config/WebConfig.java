@@ -0,0 +1,77 @@
+package com.example.loginsystem.config;
+
+import com.example.loginsystem.converter.ApiResponseHttpMessageConverter;
+import com.example.loginsystem.converter.ApiResponseProtobufCodec;
+import com.example.loginsystem.converter.ApiResponseProtobufHttpMessageConverter;
+import com.example.loginsystem.converter.ApiResponseWriter;
+import com.example.loginsystem.monitoring.TraceHandlerInterceptor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Web MVC 配置
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 带有 spring.jackson.* 配置的构建器，用于创建二进制格式的 ObjectMapper
+    @Autowired
+    private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    /**
+     * ApiResponse 手写序列化器
+     */
+    @Bean
+    public ApiResponseWriter apiResponseWriter() {
+        return new ApiResponseWriter();
+    }
+
+    /**
+     * ApiResponse 的 Protobuf 编解码器
+     */
+    @Bean
+    public ApiResponseProtobufCodec apiResponseProtobufCodec() {
+        return new ApiResponseProtobufCodec(objectMapper);
+    }
+
+    /**
+     * 请求追踪：标记进入处理器的时间
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new TraceHandlerInterceptor());
+    }
+
+    /**
+     * ApiResponse 优先使用手写序列化输出，其余类型仍由默认的 Jackson 转换器处理
+     * JSON 排在最前，Accept 未指定具体格式时仍返回 JSON；
+     * 内部服务可通过 Accept 选择 CBOR、Smile 或 Protobuf
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        ApiResponseWriter writer = apiResponseWriter();
+        converters.add(0, new ApiResponseHttpMessageConverter(objectMapper, writer,
+                MediaType.APPLICATION_JSON, new MediaType("application", "*+json")));
+        converters.add(1, new ApiResponseHttpMessageConverter(
+                objectMapperBuilder.factory(new CBORFactory()).build(), writer, MediaType.APPLICATION_CBOR));
+        converters.add(2, new ApiResponseHttpMessageConverter(
+                objectMapperBuilder.factory(new SmileFactory()).build(), writer, SMILE));
+        converters.add(3, new ApiResponseProtobufHttpMessageConverter(apiResponseProtobufCodec()));
+    }
+}
@@ -1,21 +1,39 @@
 package com.example.loginsystem.controller;
 
 import com.example.loginsystem.dto.ApiResponse;
+import com.example.loginsystem.dto.LoginEvent;
 import com.example.loginsystem.dto.LoginRequest;
 import com.example.loginsystem.dto.RegisterRequest;
+import com.example.loginsystem.dto.SignupTimeseries;
+import com.example.loginsystem.dto.UserLookupRequest;
+import com.example.loginsystem.dto.UserLookupResult;
 import com.example.loginsystem.entity.User;
 import com.example.loginsystem.entity.UserRole;
+import com.example.loginsystem.journal.LoginJournal;
+import com.example.loginsystem.journal.LoginOutcome;
+import com.example.loginsystem.repository.UserField;
+import com.example.loginsystem.service.IdempotencyStore;
+import com.example.loginsystem.service.SignupRollupService;
+import com.example.loginsystem.service.UserEventBroadcaster;
 import com.example.loginsystem.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * 用户管理控制器
@@ -30,12 +48,25 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserEventBroadcaster userEventBroadcaster;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private SignupRollupService signupRollupService;
+
+    @Autowired
+    private ObjectProvider<LoginJournal> loginJournal;
+
     /**
      * 用户登录
      */
     @PostMapping("/login")
     public ResponseEntity<ApiResponse<User>> login(@Valid @RequestBody LoginRequest request,
-                                                   BindingResult bindingResult) {
+                                                   BindingResult bindingResult,
+                                                   HttpServletRequest httpRequest) {
         logger.info("收到登录请求，用户名: {}", request.getUsername());
 
         // 验证请求参数
@@ -47,7 +78,7 @@ public class UserController {
         }
 
         try {
-            User user = userService.login(request.getUsername(), request.getPassword());
+            User user = userService.login(request.getUsername(), request.getPassword(), httpRequest.getRemoteAddr());
             if (user != null) {
                 // 不返回密码信息
                 user.setPassword(null);
@@ -67,10 +98,13 @@ public class UserController {
 
     /**
      * 用户注册
+     * 支持 Idempotency-Key 请求头，客户端超时重试时不会重复注册
      */
     @PostMapping("/register")
     public ResponseEntity<ApiResponse<User>> register(@Valid @RequestBody RegisterRequest request,
-                                                      BindingResult bindingResult) {
+                                                      BindingResult bindingResult,
+                                                      @RequestHeader(value = IdempotencyStore.HEADER, required = false)
+                                                      String idempotencyKey) {
         logger.info("收到注册请求，用户名: {}", request.getUsername());
 
         // 验证请求参数
@@ -81,36 +115,46 @@ public class UserController {
                     .body(ApiResponse.error("参数验证失败: " + errorMessage));
         }
 
-        try {
-            User user = userService.register(request);
-            // 不返回密码信息
-            user.setPassword(null);
-            logger.info("用户 {} 注册成功", user.getUsername());
-            return ResponseEntity.ok(ApiResponse.success("注册成功", user));
-        } catch (RuntimeException e) {
-            logger.warn("注册失败: {}", e.getMessage());
-            return ResponseEntity.badRequest()
-                    .body(ApiResponse.error(e.getMessage()));
-        } catch (Exception e) {
-            logger.error("注册过程发生异常: ", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(ApiResponse.serverError("注册失败: " + e.getMessage()));
-        }
+        String fingerprint = IdempotencyStore.fingerprint(
+                request.getUsername(), request.getPassword(), request.getRole());
+        return idempotencyStore.execute(idempotencyKey, "register", fingerprint, () -> {
+            try {
+                User user = userService.register(request);
+                // 不返回密码信息
+                user.setPassword(null);
+                logger.info("用户 {} 注册成功", user.getUsername());
+                return ResponseEntity.ok(ApiResponse.success("注册成功", user));
+            } catch (RuntimeException e) {
+                logger.warn("注册失败: {}", e.getMessage());
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.error(e.getMessage()));
+            } catch (Exception e) {
+                logger.error("注册过程发生异常: ", e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ApiResponse.serverError("注册失败: " + e.getMessage()));
+            }
+        });
     }
 
     /**
      * 获取所有用户（仅管理员可访问）
+     * 可通过 fields 参数只返回部分字段，如 ?fields=id,username
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<User>>> getAllUsers() {
-        logger.info("收到获取所有用户请求");
+    public ResponseEntity<ApiResponse<List<User>>> getAllUsers(@RequestParam(required = false) String fields) {
+        logger.info("收到获取所有用户请求，字段: {}", fields);
 
         try {
-            List<User> users = userService.getAllUsers();
+            Set<UserField> selected = fields != null ? UserField.parse(fields) : null;
+            List<User> users = selected != null ? userService.getAllUsers(selected) : userService.getAllUsers();
             // 清除密码信息
             users.forEach(user -> user.setPassword(null));
             logger.info("成功获取用户列表，共 {} 个用户", users.size());
             return ResponseEntity.ok(ApiResponse.success(users));
+        } catch (IllegalArgumentException e) {
+            logger.warn("获取用户列表参数错误: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             logger.error("获取用户列表过程发生异常: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -144,29 +188,71 @@ public class UserController {
     }
 
     /**
-     * 更新用户信息（仅管理员可访问）
+     * 批量查询用户（仅管理员可访问）
+     * 代替逐个调用 GET /api/users/{id}，一次请求最多查询 app.lookup.max-keys 个ID或用户名
      */
-    @PutMapping("/{id}")
-    public ResponseEntity<ApiResponse<User>> updateUser(@PathVariable Long id,
-                                                        @RequestBody User user) {
-        logger.info("收到更新用户请求，ID: {}", id);
+    @PostMapping("/lookup")
+    public ResponseEntity<ApiResponse<UserLookupResult>> lookupUsers(@RequestBody UserLookupRequest request) {
+        logger.info("收到批量查询用户请求: {}", request);
 
         try {
-            User updatedUser = userService.updateUser(id, user);
-            updatedUser.setPassword(null);
-            logger.info("用户 {} 信息更新成功", updatedUser.getUsername());
-            return ResponseEntity.ok(ApiResponse.success("更新成功", updatedUser));
-        } catch (RuntimeException e) {
-            logger.warn("更新用户失败: {}", e.getMessage());
+            UserLookupResult result = userService.lookupUsers(request);
+            // 清除密码信息
+            result.getUsers().forEach(user -> user.setPassword(null));
+            logger.info("批量查询完成，找到 {} 个用户，未找到ID {} 个、用户名 {} 个", result.getUsers().size(),
+                    result.getMissingIds().size(), result.getMissingUsernames().size());
+            return ResponseEntity.ok(ApiResponse.success(result));
+        } catch (IllegalArgumentException e) {
+            logger.warn("批量查询用户失败: {}", e.getMessage());
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
-            logger.error("更新用户过程发生异常: ", e);
+            logger.error("批量查询用户过程发生异常: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(ApiResponse.serverError("更新失败: " + e.getMessage()));
+                    .body(ApiResponse.serverError("批量查询失败: " + e.getMessage()));
         }
     }
 
+    /**
+     * 批量查询用户（GET 形式，参数以逗号分隔：?ids=1,2&usernames=a,b）
+     */
+    @GetMapping("/lookup")
+    public ResponseEntity<ApiResponse<UserLookupResult>> lookupUsers(
+            @RequestParam(required = false) List<Long> ids,
+            @RequestParam(required = false) List<String> usernames) {
+        return lookupUsers(new UserLookupRequest(ids, usernames));
+    }
+
+    /**
+     * 更新用户信息（仅管理员可访问）
+     * 支持 Idempotency-Key 请求头，重试时重放首次的结果
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<ApiResponse<User>> updateUser(@PathVariable Long id,
+                                                        @RequestBody User user,
+                                                        @RequestHeader(value = IdempotencyStore.HEADER, required = false)
+                                                        String idempotencyKey) {
+        logger.info("收到更新用户请求，ID: {}", id);
+
+        String fingerprint = IdempotencyStore.fingerprint(id, user.getUsername(), user.getPassword(), user.getRole());
+        return idempotencyStore.execute(idempotencyKey, "update", fingerprint, () -> {
+            try {
+                User updatedUser = userService.updateUser(id, user);
+                updatedUser.setPassword(null);
+                logger.info("用户 {} 信息更新成功", updatedUser.getUsername());
+                return ResponseEntity.ok(ApiResponse.success("更新成功", updatedUser));
+            } catch (RuntimeException e) {
+                logger.warn("更新用户失败: {}", e.getMessage());
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.error(e.getMessage()));
+            } catch (Exception e) {
+                logger.error("更新用户过程发生异常: ", e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ApiResponse.serverError("更新失败: " + e.getMessage()));
+            }
+        });
+    }
+
     /**
      * 删除用户（仅管理员可访问）
      */
@@ -197,17 +283,25 @@ public class UserController {
 
     /**
      * 根据角色获取用户列表
+     * 可通过 fields 参数只返回部分字段
      */
     @GetMapping("/role/{role}")
-    public ResponseEntity<ApiResponse<List<User>>> getUsersByRole(@PathVariable UserRole role) {
-        logger.info("收到根据角色获取用户请求，角色: {}", role);
+    public ResponseEntity<ApiResponse<List<User>>> getUsersByRole(@PathVariable UserRole role,
+                                                                  @RequestParam(required = false) String fields) {
+        logger.info("收到根据角色获取用户请求，角色: {}，字段: {}", role, fields);
 
         try {
-            List<User> users = userService.getUsersByRole(role);
+            Set<UserField> selected = fields != null ? UserField.parse(fields) : null;
+            List<User> users = selected != null
+                    ? userService.getUsersByRole(role, selected) : userService.getUsersByRole(role);
             // 清除密码信息
             users.forEach(user -> user.setPassword(null));
             logger.info("成功获取 {} 角色用户列表，共 {} 个用户", role, users.size());
             return ResponseEntity.ok(ApiResponse.success(users));
+        } catch (IllegalArgumentException e) {
+            logger.warn("根据角色获取用户列表参数错误: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             logger.error("根据角色获取用户列表过程发生异常: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -217,17 +311,25 @@ public class UserController {
 
     /**
      * 搜索用户
+     * 可通过 fields 参数只返回部分字段
      */
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<List<User>>> searchUsers(@RequestParam(required = false) String keyword) {
-        logger.info("收到搜索用户请求，关键词: {}", keyword);
+    public ResponseEntity<ApiResponse<List<User>>> searchUsers(@RequestParam(required = false) String keyword,
+                                                               @RequestParam(required = false) String fields) {
+        logger.info("收到搜索用户请求，关键词: {}，字段: {}", keyword, fields);
 
         try {
-            List<User> users = userService.searchUsers(keyword);
+            Set<UserField> selected = fields != null ? UserField.parse(fields) : null;
+            List<User> users = selected != null
+                    ? userService.searchUsers(keyword, selected) : userService.searchUsers(keyword);
             // 清除密码信息
             users.forEach(user -> user.setPassword(null));
             logger.info("搜索完成，找到 {} 个用户", users.size());
             return ResponseEntity.ok(ApiResponse.success(users));
+        } catch (IllegalArgumentException e) {
+            logger.warn("搜索用户参数错误: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             logger.error("搜索用户过程发生异常: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -278,4 +380,84 @@ public class UserController {
                     .body(ApiResponse.serverError("获取统计信息失败: " + e.getMessage()));
         }
     }
+
+    /**
+     * 注册量时间序列（仅管理员可访问）
+     * 读取按小时、按天预聚合的计数，如 ?granularity=MONTH&from=2024-01-01T00:00:00 返回最近12个月每月的注册量；
+     * 未指定范围时到当前时间为止，HOUR 默认最近48小时，DAY 默认最近30天，MONTH 默认最近12个月
+     */
+    @GetMapping("/statistics/timeseries")
+    public ResponseEntity<ApiResponse<SignupTimeseries>> getSignupTimeseries(
+            @RequestParam(defaultValue = "DAY") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) UserRole role) {
+        logger.info("收到获取注册量时间序列请求，粒度: {}，范围: {} ~ {}，角色: {}", granularity, from, to, role);
+
+        try {
+            SignupTimeseries.Granularity unit = SignupTimeseries.Granularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+            LocalDateTime end = to != null ? to : LocalDateTime.now();
+            LocalDateTime start = from != null ? from : switch (unit) {
+                case HOUR -> end.minusHours(48);
+                case DAY -> end.minusDays(30);
+                case MONTH -> end.minusMonths(12);
+            };
+            SignupTimeseries timeseries = signupRollupService.query(unit, start, end, role);
+            logger.info("成功获取注册量时间序列，共 {} 个桶", timeseries.getBuckets().size());
+            return ResponseEntity.ok(ApiResponse.success(timeseries));
+        } catch (IllegalArgumentException e) {
+            logger.warn("获取注册量时间序列参数错误: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("获取注册量时间序列过程发生异常: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.serverError("获取注册量时间序列失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 最近的登录事件（仅管理员可访问）
+     * 直接读取本节点的本地登录事件日志，不查询数据库；各节点汇总后的完整记录在 login_events 表中
+     */
+    @GetMapping("/login-events")
+    public ResponseEntity<ApiResponse<List<LoginEvent>>> getRecentLoginEvents(
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) LoginOutcome outcome) {
+        logger.info("收到获取登录事件请求，数量: {}，用户名: {}，结果: {}", limit, username, outcome);
+
+        LoginJournal journal = loginJournal.getIfAvailable();
+        if (journal == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("登录事件日志未开启", HttpStatus.NOT_FOUND.value()));
+        }
+        if (limit < 1 || limit > 10000) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("limit 必须在 1 到 10000 之间"));
+        }
+        List<LoginEvent> events = journal.recent(limit, username, outcome);
+        logger.info("成功获取登录事件，共 {} 条", events.size());
+        return ResponseEntity.ok(ApiResponse.success(events));
+    }
+
+    /**
+     * 订阅用户变更事件（SSE，仅管理员可访问）
+     * 断线重连时浏览器会自动携带 Last-Event-ID，服务端从内存环形缓冲区补发
+     */
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeUserEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        logger.info("收到订阅用户变更事件请求，Last-Event-ID: {}", lastEventId);
+
+        Long lastId = null;
+        if (lastEventId != null) {
+            try {
+                lastId = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("无效的 Last-Event-ID: {}", lastEventId);
+            }
+        }
+        return userEventBroadcaster.subscribe(lastId);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.example.loginsystem.converter;
+
+import com.example.loginsystem.dto.ApiResponse;
+import com.example.loginsystem.monitoring.RequestTrace;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+
+/**
+ * ApiResponse 的输出转换器
+ * 由 {@link ApiResponseWriter} 直接写入响应输出流，只负责输出，请求体仍由 Jackson 转换器解析。
+ * 输出格式由 ObjectMapper 的 JsonFactory 决定：JSON、CBOR 或 Smile。
+ */
+public class ApiResponseHttpMessageConverter extends AbstractHttpMessageConverter<ApiResponse<?>> {
+
+    private final ObjectMapper objectMapper;
+
+    private final ApiResponseWriter writer;
+
+    /**
+     * @param objectMapper 决定输出格式的 ObjectMapper，非 User 类型的 data 也由它序列化
+     * @param writer 手写序列化器
+     * @param supportedMediaTypes 支持的媒体类型
+     */
+    public ApiResponseHttpMessageConverter(ObjectMapper objectMapper, ApiResponseWriter writer,
+                                           MediaType... supportedMediaTypes) {
+        super(supportedMediaTypes);
+        this.objectMapper = objectMapper;
+        this.writer = writer;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ApiResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ApiResponse<?> readInternal(Class<? extends ApiResponse<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("不支持读取 ApiResponse", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(ApiResponse<?> response, HttpOutputMessage outputMessage) throws IOException {
+        RequestTrace.begin(RequestTrace.Phase.SERIALIZE);
+        // 关闭生成器以归还 Jackson 的缓冲区，但不关闭响应输出流
+        try (JsonGenerator generator = objectMapper.createGenerator(
+                StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+            writer.write(response, generator);
+        } finally {
+            RequestTrace.end(RequestTrace.Phase.SERIALIZE);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.loginsystem.converter;
+
+import com.example.loginsystem.dto.ApiResponse;
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ApiResponse 的 Protobuf 编解码
+ * 按 proto/api_response.proto 定义的结构直接读写 Protobuf 线格式，不生成中间消息对象，也不经过 JSON。
+ * 嵌套消息需要先写长度，因此编码分两步：先计算各 User 的大小，再顺序写出。
+ * 密码字段不在该格式中传输。
+ */
+public class ApiResponseProtobufCodec {
+
+    // ApiResponse 字段
+    private static final int SUCCESS = 1;
+    private static final int MESSAGE = 2;
+    private static final int DATA_USER = 3;
+    private static final int DATA_USERS = 4;
+    private static final int DATA_FLAG = 5;
+    private static final int DATA_TEXT = 6;
+    private static final int DATA_JSON = 7;
+    private static final int TIMESTAMP = 8;
+    private static final int CODE = 9;
+
+    // UserList 字段
+    private static final int USERS = 1;
+
+    // User 字段
+    private static final int ID = 1;
+    private static final int USERNAME = 2;
+    private static final int ROLE = 3;
+    private static final int CREATED_AT = 4;
+    private static final int UPDATED_AT = 5;
+    private static final int LAST_LOGIN_AT = 6;
+    private static final int LOGIN_COUNT = 7;
+
+    // google.protobuf.Timestamp 字段
+    private static final int SECONDS = 1;
+    private static final int NANOS = 2;
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final ObjectMapper objectMapper;
+
+    // LocalDateTime 均由服务器本地时钟生成，按本地时区换算为绝对时间
+    private final ZoneId zone;
+
+    /**
+     * @param objectMapper 用于 User 以外的 data（以 JSON 字节传输）
+     */
+    public ApiResponseProtobufCodec(ObjectMapper objectMapper) {
+        this(objectMapper, ZoneId.systemDefault());
+    }
+
+    public ApiResponseProtobufCodec(ObjectMapper objectMapper, ZoneId zone) {
+        this.objectMapper = objectMapper;
+        this.zone = zone;
+    }
+
+    /**
+     * 编码一个 ApiResponse
+     * @param response 响应
+     * @param out 输出流，不会被关闭
+     */
+    public void write(ApiResponse<?> response, OutputStream out) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(out, BUFFER_SIZE);
+        if (response.isSuccess()) {
+            output.writeBool(SUCCESS, true);
+        }
+        if (response.getMessage() != null) {
+            output.writeString(MESSAGE, response.getMessage());
+        }
+        writeData(response.getData(), output);
+        writeTimestamp(TIMESTAMP, response.getTimestamp(), output);
+        if (response.getCode() != 0) {
+            output.writeInt32(CODE, response.getCode());
+        }
+        output.flush();
+    }
+
+    /**
+     * 解码一个 ApiResponse
+     * data 的类型为 User、List&lt;User&gt;、Boolean、String，或由 JSON 解析出的 Map/List 等
+     */
+    public ApiResponse<Object> read(InputStream in) throws IOException {
+        CodedInputStream input = CodedInputStream.newInstance(in);
+        ApiResponse<Object> response = ApiResponse.success((Object) null);
+        response.setSuccess(false);
+        response.setMessage(null);
+        response.setTimestamp(null);
+        response.setCode(0);
+
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case SUCCESS -> response.setSuccess(input.readBool());
+                case MESSAGE -> response.setMessage(input.readStringRequireUtf8());
+                case DATA_USER -> {
+                    int limit = input.pushLimit(input.readRawVarint32());
+                    response.setData(readUser(input));
+                    input.popLimit(limit);
+                }
+                case DATA_USERS -> {
+                    int limit = input.pushLimit(input.readRawVarint32());
+                    response.setData(readUsers(input));
+                    input.popLimit(limit);
+                }
+                case DATA_FLAG -> response.setData(input.readBool());
+                case DATA_TEXT -> response.setData(input.readStringRequireUtf8());
+                case DATA_JSON -> response.setData(objectMapper.readValue(input.readByteArray(), Object.class));
+                case TIMESTAMP -> response.setTimestamp(readTimestamp(input));
+                case CODE -> response.setCode(input.readInt32());
+                default -> input.skipField(tag);
+            }
+        }
+        return response;
+    }
+
+    private void writeData(Object data, CodedOutputStream output) throws IOException {
+        if (data == null) {
+            return;
+        }
+        if (data instanceof User user) {
+            output.writeTag(DATA_USER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(userSize(user));
+            writeUser(user, output);
+        } else if (data instanceof List<?> list && ApiResponseWriter.isUserList(list)) {
+            int[] sizes = new int[list.size()];
+            int total = 0;
+            for (int i = 0; i < sizes.length; i++) {
+                sizes[i] = userSize((User) list.get(i));
+                total += CodedOutputStream.computeTagSize(USERS)
+                        + CodedOutputStream.computeUInt32SizeNoTag(sizes[i]) + sizes[i];
+            }
+            // 空列表同样写出，与 data 为空区分
+            output.writeTag(DATA_USERS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(total);
+            for (int i = 0; i < sizes.length; i++) {
+                output.writeTag(USERS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                output.writeUInt32NoTag(sizes[i]);
+                writeUser((User) list.get(i), output);
+            }
+        } else if (data instanceof Boolean value) {
+            output.writeBool(DATA_FLAG, value);
+        } else if (data instanceof String value) {
+            output.writeString(DATA_TEXT, value);
+        } else {
+            output.writeByteArray(DATA_JSON, objectMapper.writeValueAsBytes(data));
+        }
+    }
+
+    private int userSize(User user) {
+        int size = 0;
+        if (user.getId() != null && user.getId() != 0) {
+            size += CodedOutputStream.computeInt64Size(ID, user.getId());
+        }
+        if (user.getUsername() != null) {
+            size += CodedOutputStream.computeStringSize(USERNAME, user.getUsername());
+        }
+        if (user.getRole() != null && user.getRole().ordinal() != 0) {
+            size += CodedOutputStream.computeEnumSize(ROLE, user.getRole().ordinal());
+        }
+        size += timestampFieldSize(CREATED_AT, user.getCreatedAt());
+        size += timestampFieldSize(UPDATED_AT, user.getUpdatedAt());
+        size += timestampFieldSize(LAST_LOGIN_AT, user.getLastLoginAt());
+        if (user.getLoginCount() != null) {
+            size += CodedOutputStream.computeInt64Size(LOGIN_COUNT, user.getLoginCount());
+        }
+        return size;
+    }
+
+    private void writeUser(User user, CodedOutputStream output) throws IOException {
+        if (user.getId() != null && user.getId() != 0) {
+            output.writeInt64(ID, user.getId());
+        }
+        if (user.getUsername() != null) {
+            output.writeString(USERNAME, user.getUsername());
+        }
+        if (user.getRole() != null && user.getRole().ordinal() != 0) {
+            output.writeEnum(ROLE, user.getRole().ordinal());
+        }
+        writeTimestamp(CREATED_AT, user.getCreatedAt(), output);
+        writeTimestamp(UPDATED_AT, user.getUpdatedAt(), output);
+        writeTimestamp(LAST_LOGIN_AT, user.getLastLoginAt(), output);
+        if (user.getLoginCount() != null) {
+            output.writeInt64(LOGIN_COUNT, user.getLoginCount());
+        }
+    }
+
+    private User readUser(CodedInputStream input) throws IOException {
+        User user = new User();
+        // proto3 中未出现的字段即默认值
+        user.setRole(UserRole.USER);
+        user.setCreatedAt(null);
+        user.setUpdatedAt(null);
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case ID -> user.setId(input.readInt64());
+                case USERNAME -> user.setUsername(input.readStringRequireUtf8());
+                case ROLE -> user.setRole(UserRole.values()[input.readEnum()]);
+                case CREATED_AT -> user.setCreatedAt(readTimestamp(input));
+                case UPDATED_AT -> user.setUpdatedAt(readTimestamp(input));
+                case LAST_LOGIN_AT -> user.setLastLoginAt(readTimestamp(input));
+                case LOGIN_COUNT -> user.setLoginCount(input.readInt64());
+                default -> input.skipField(tag);
+            }
+        }
+        return user;
+    }
+
+    private List<User> readUsers(CodedInputStream input) throws IOException {
+        List<User> users = new ArrayList<>();
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            if (WireFormat.getTagFieldNumber(tag) == USERS) {
+                int limit = input.pushLimit(input.readRawVarint32());
+                users.add(readUser(input));
+                input.popLimit(limit);
+            } else {
+                input.skipField(tag);
+            }
+        }
+        return users;
+    }
+
+    private int timestampFieldSize(int fieldNumber, LocalDateTime value) {
+        if (value == null) {
+            return 0;
+        }
+        int size = timestampSize(value.atZone(zone));
+        return CodedOutputStream.computeTagSize(fieldNumber) + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+    }
+
+    private int timestampSize(ZonedDateTime value) {
+        int size = 0;
+        if (value.toEpochSecond() != 0) {
+            size += CodedOutputStream.computeInt64Size(SECONDS, value.toEpochSecond());
+        }
+        if (value.getNano() != 0) {
+            size += CodedOutputStream.computeInt32Size(NANOS, value.getNano());
+        }
+        return size;
+    }
+
+    private void writeTimestamp(int fieldNumber, LocalDateTime value, CodedOutputStream output) throws IOException {
+        if (value == null) {
+            return;
+        }
+        ZonedDateTime zoned = value.atZone(zone);
+        output.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(timestampSize(zoned));
+        if (zoned.toEpochSecond() != 0) {
+            output.writeInt64(SECONDS, zoned.toEpochSecond());
+        }
+        if (zoned.getNano() != 0) {
+            output.writeInt32(NANOS, zoned.getNano());
+        }
+    }
+
+    private LocalDateTime readTimestamp(CodedInputStream input) throws IOException {
+        int limit = input.pushLimit(input.readRawVarint32());
+        long seconds = 0;
+        int nanos = 0;
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case SECONDS -> seconds = input.readInt64();
+                case NANOS -> nanos = input.readInt32();
+                default -> input.skipField(tag);
+            }
+        }
+        input.popLimit(limit);
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(seconds, nanos), zone);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.loginsystem.converter;
+
+import com.example.loginsystem.dto.ApiResponse;
+import com.example.loginsystem.monitoring.RequestTrace;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * ApiResponse 的 Protobuf 输出转换器（application/x-protobuf）
+ * 结构见 proto/api_response.proto，只负责输出。
+ */
+public class ApiResponseProtobufHttpMessageConverter extends AbstractHttpMessageConverter<ApiResponse<?>> {
+
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    private final ApiResponseProtobufCodec codec;
+
+    public ApiResponseProtobufHttpMessageConverter(ApiResponseProtobufCodec codec) {
+        super(PROTOBUF);
+        this.codec = codec;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ApiResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ApiResponse<?> readInternal(Class<? extends ApiResponse<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("不支持读取 ApiResponse", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(ApiResponse<?> response, HttpOutputMessage outputMessage) throws IOException {
+        RequestTrace.begin(RequestTrace.Phase.SERIALIZE);
+        try {
+            codec.write(response, outputMessage.getBody());
+        } finally {
+            RequestTrace.end(RequestTrace.Phase.SERIALIZE);
+        }
+    }
+}
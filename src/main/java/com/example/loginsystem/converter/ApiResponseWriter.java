@@ -0,0 +1,178 @@
+package com.example.loginsystem.converter;
+
+import com.example.loginsystem.dto.ApiResponse;
+import com.example.loginsystem.entity.User;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * ApiResponse 手写序列化
+ * 直接驱动 JsonGenerator，不经过反射的 Bean 序列化：字段名预先编码，日期时间写入复用的字符缓冲区。
+ * 输出与应用 ObjectMapper 的结果逐字节一致（字段顺序、NON_NULL、ISO 日期时间），
+ * User、List&lt;User&gt; 和简单类型之外的 data 仍交给 ObjectMapper 序列化。
+ * 只依赖 JsonGenerator 接口，二进制格式（CBOR/Smile）的生成器同样适用。
+ */
+public class ApiResponseWriter {
+
+    private static final SerializedString SUCCESS = new SerializedString("success");
+    private static final SerializedString MESSAGE = new SerializedString("message");
+    private static final SerializedString DATA = new SerializedString("data");
+    private static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+    private static final SerializedString CODE = new SerializedString("code");
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString USERNAME = new SerializedString("username");
+    private static final SerializedString PASSWORD = new SerializedString("password");
+    private static final SerializedString ROLE = new SerializedString("role");
+    private static final SerializedString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializedString UPDATED_AT = new SerializedString("updatedAt");
+    private static final SerializedString LAST_LOGIN_AT = new SerializedString("lastLoginAt");
+    private static final SerializedString LOGIN_COUNT = new SerializedString("loginCount");
+
+    // yyyy-MM-ddTHH:mm:ss.nnnnnnnnn
+    private static final int MAX_DATE_TIME_LENGTH = 29;
+
+    /**
+     * 写出一个 ApiResponse
+     * @param response 响应
+     * @param generator 目标生成器，由调用方负责关闭
+     */
+    public void write(ApiResponse<?> response, JsonGenerator generator) throws IOException {
+        // 同一响应内所有日期时间共用一个缓冲区
+        char[] buffer = new char[MAX_DATE_TIME_LENGTH];
+
+        generator.writeStartObject();
+        generator.writeFieldName(SUCCESS);
+        generator.writeBoolean(response.isSuccess());
+        if (response.getMessage() != null) {
+            generator.writeFieldName(MESSAGE);
+            generator.writeString(response.getMessage());
+        }
+        if (response.getData() != null) {
+            generator.writeFieldName(DATA);
+            writeData(response.getData(), generator, buffer);
+        }
+        writeDateTime(TIMESTAMP, response.getTimestamp(), generator, buffer);
+        generator.writeFieldName(CODE);
+        generator.writeNumber(response.getCode());
+        generator.writeEndObject();
+    }
+
+    private void writeData(Object data, JsonGenerator generator, char[] buffer) throws IOException {
+        if (data instanceof User user) {
+            writeUser(user, generator, buffer);
+        } else if (data instanceof List<?> list && isUserList(list)) {
+            generator.writeStartArray(list, list.size());
+            for (Object user : list) {
+                writeUser((User) user, generator, buffer);
+            }
+            generator.writeEndArray();
+        } else if (data instanceof Boolean value) {
+            generator.writeBoolean(value);
+        } else if (data instanceof String value) {
+            generator.writeString(value);
+        } else {
+            generator.writeObject(data);
+        }
+    }
+
+    private void writeUser(User user, JsonGenerator generator, char[] buffer) throws IOException {
+        generator.writeStartObject(user);
+        if (user.getId() != null) {
+            generator.writeFieldName(ID);
+            generator.writeNumber(user.getId());
+        }
+        if (user.getUsername() != null) {
+            generator.writeFieldName(USERNAME);
+            generator.writeString(user.getUsername());
+        }
+        if (user.getPassword() != null) {
+            generator.writeFieldName(PASSWORD);
+            generator.writeString(user.getPassword());
+        }
+        if (user.getRole() != null) {
+            generator.writeFieldName(ROLE);
+            generator.writeString(user.getRole().name());
+        }
+        writeDateTime(CREATED_AT, user.getCreatedAt(), generator, buffer);
+        writeDateTime(UPDATED_AT, user.getUpdatedAt(), generator, buffer);
+        writeDateTime(LAST_LOGIN_AT, user.getLastLoginAt(), generator, buffer);
+        if (user.getLoginCount() != null) {
+            generator.writeFieldName(LOGIN_COUNT);
+            generator.writeNumber(user.getLoginCount());
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * 列表元素是否全部为 User（空列表视为 User 列表）
+     */
+    static boolean isUserList(List<?> list) {
+        for (Object element : list) {
+            if (!(element instanceof User)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeDateTime(SerializedString name, LocalDateTime value, JsonGenerator generator, char[] buffer)
+            throws IOException {
+        if (value == null) {
+            return;
+        }
+        generator.writeFieldName(name);
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            // 超出四位年份时 ISO 格式带符号，交给标准格式化器
+            generator.writeString(value.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            return;
+        }
+        generator.writeString(buffer, 0, formatIsoLocalDateTime(value, buffer));
+    }
+
+    /**
+     * 按 DateTimeFormatter.ISO_LOCAL_DATE_TIME 的规则格式化：
+     * 秒总是输出，纳秒去掉末尾的0，为0时省略小数部分
+     * @return 写入的字符数
+     */
+    static int formatIsoLocalDateTime(LocalDateTime value, char[] buffer) {
+        int pos = 0;
+        pos = writeDigits(buffer, pos, value.getYear(), 4);
+        buffer[pos++] = '-';
+        pos = writeDigits(buffer, pos, value.getMonthValue(), 2);
+        buffer[pos++] = '-';
+        pos = writeDigits(buffer, pos, value.getDayOfMonth(), 2);
+        buffer[pos++] = 'T';
+        pos = writeDigits(buffer, pos, value.getHour(), 2);
+        buffer[pos++] = ':';
+        pos = writeDigits(buffer, pos, value.getMinute(), 2);
+        buffer[pos++] = ':';
+        pos = writeDigits(buffer, pos, value.getSecond(), 2);
+
+        int nano = value.getNano();
+        if (nano > 0) {
+            int digits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                digits--;
+            }
+            buffer[pos++] = '.';
+            pos = writeDigits(buffer, pos, nano, digits);
+        }
+        return pos;
+    }
+
+    private static int writeDigits(char[] buffer, int pos, int value, int width) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + width;
+    }
+}
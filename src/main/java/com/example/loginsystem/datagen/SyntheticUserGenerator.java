@@ -0,0 +1,466 @@
+package com.example.loginsystem.datagen;
+
+import com.example.loginsystem.sharding.ShardRouter;
+import com.example.loginsystem.sharding.ShardRoutingDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 压测数据生成器（generate-data 配置）
+ * 向 users 表写入指定数量的模拟用户：用户名前缀服从 Zipf 分布（少数前缀占多数用户），
+ * 角色按比例分配，注册时间分布在最近若干天内且越近越密集，部分用户带有登录记录。
+ * 密码只预先加密少量几个，按行号轮流使用；以多行 INSERT 批量写入，
+ * 写入前删除二级索引、写完后按删除前从数据库元数据读出的定义重建，开启分片时按用户名路由到各分片。
+ * ID 由生成器按批分配（并发多行插入时不依赖自增列），写完后把自增起点调整到最大ID之后。
+ * <p>
+ * 运行：java -jar login-system.jar --spring.profiles.active=generate-data --app.data-generator.rows=10000000
+ * <p>
+ * 第 i 行的用户名为 前缀_i，密码为 generated-(i % password-pool-size)。
+ */
+@Component
+@Profile("generate-data")
+public class SyntheticUserGenerator implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticUserGenerator.class);
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO users (id, username, password, role, created_at, updated_at, last_login_at, login_count) VALUES ";
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int COLUMNS = 7;
+
+    // 用户名前缀由音节组合而成
+    private static final String[] SYLLABLES = {
+            "wei", "li", "zhang", "wang", "chen", "liu", "yang", "zhao", "huang", "zhou",
+            "wu", "xu", "sun", "hu", "zhu", "gao", "lin", "he", "guo", "ma",
+            "luo", "liang", "song", "zheng", "xie", "han", "tang", "feng", "yu", "dong",
+            "xiao", "cheng", "cao", "yuan", "deng", "fu", "shen", "peng", "lu", "jiang"
+    };
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    // 开启分片时直接写入各分片的物理数据源
+    @Autowired
+    private ObjectProvider<ShardRouter> shardRouter;
+
+    @Autowired
+    private ObjectProvider<ShardRoutingDataSource> shardRoutingDataSource;
+
+    @Value("${app.data-generator.rows:1000000}")
+    private long rows;
+
+    @Value("${app.data-generator.start-index:0}")
+    private long startIndex;
+
+    @Value("${app.data-generator.batch-rows:1000}")
+    private int batchRows;
+
+    @Value("${app.data-generator.threads:4}")
+    private int threads;
+
+    @Value("${app.data-generator.password-pool-size:16}")
+    private int passwordPoolSize;
+
+    @Value("${app.data-generator.prefix-count:2000}")
+    private int prefixCount;
+
+    @Value("${app.data-generator.zipf-exponent:1.1}")
+    private double zipfExponent;
+
+    @Value("${app.data-generator.admin-ratio:0.001}")
+    private double adminRatio;
+
+    @Value("${app.data-generator.history-days:1095}")
+    private int historyDays;
+
+    @Value("${app.data-generator.active-ratio:0.6}")
+    private double activeRatio;
+
+    @Value("${app.data-generator.seed:42}")
+    private long seed;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        generate();
+    }
+
+    /**
+     * 生成并写入模拟用户
+     * @return 写入的行数
+     */
+    public long generate() throws Exception {
+        List<DataSource> targets = targets();
+        ShardRouter router = targets.size() > 1 ? shardRouter.getObject() : null;
+        String[] passwords = encodePasswords();
+        RowFactory rowFactory = new RowFactory(passwords, LocalDateTime.now());
+
+        logger.info("开始生成 {} 个模拟用户（起始序号 {}，{} 个目标库，{} 个线程）",
+                rows, startIndex, targets.size(), threads);
+        long start = System.nanoTime();
+
+        AtomicLong[] nextIds = new AtomicLong[targets.size()];
+        List<List<IndexDefinition>> droppedIndexes = new ArrayList<>(targets.size());
+        for (int i = 0; i < targets.size(); i++) {
+            nextIds[i] = new AtomicLong(firstFreeId(targets.get(i), router == null ? 1 : router.firstIdOf(i)));
+            droppedIndexes.add(dropSecondaryIndexes(targets.get(i)));
+        }
+
+        AtomicLong nextChunk = new AtomicLong();
+        AtomicLong written = new AtomicLong();
+        long chunks = (rows + batchRows - 1) / batchRows;
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "data-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    load(targets, nextIds, router, rowFactory, nextChunk, chunks, written, start);
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            long loaded = System.nanoTime();
+            for (int i = 0; i < targets.size(); i++) {
+                createSecondaryIndexes(targets.get(i), droppedIndexes.get(i), nextIds[i].get());
+                resetSignupRollup(targets.get(i));
+            }
+            logger.info("写入 {} 行耗时 {} 秒，重建索引耗时 {} 秒", written.get(),
+                    (loaded - start) / 1_000_000_000.0, (System.nanoTime() - loaded) / 1_000_000_000.0);
+        }
+        return written.get();
+    }
+
+    private List<DataSource> targets() {
+        ShardRoutingDataSource shards = shardRoutingDataSource.getIfAvailable();
+        ShardRouter router = shardRouter.getIfAvailable();
+        if (shards == null || router == null) {
+            return List.of(dataSource);
+        }
+        List<DataSource> targets = new ArrayList<>(router.getShardCount());
+        for (int shard = 0; shard < router.getShardCount(); shard++) {
+            targets.add(shards.getShard(shard));
+        }
+        return targets;
+    }
+
+    /**
+     * 预先加密的密码池，避免逐行计算 BCrypt
+     */
+    private String[] encodePasswords() {
+        String[] passwords = new String[passwordPoolSize];
+        for (int i = 0; i < passwordPoolSize; i++) {
+            passwords[i] = passwordEncoder.encode("generated-" + i);
+        }
+        return passwords;
+    }
+
+    /**
+     * 工作线程：逐块领取行号区间，按目标库缓冲，满一批即写入
+     */
+    private void load(List<DataSource> targets, AtomicLong[] nextIds, ShardRouter router, RowFactory rowFactory,
+                      AtomicLong nextChunk, long chunks, AtomicLong written, long start) throws SQLException {
+        BatchWriter[] writers = new BatchWriter[targets.size()];
+        try {
+            for (int i = 0; i < writers.length; i++) {
+                writers[i] = new BatchWriter(targets.get(i).getConnection(), nextIds[i], batchRows);
+            }
+            Object[] row = new Object[COLUMNS];
+            long chunk;
+            while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                // 每块使用独立的随机数种子，生成结果与线程数无关
+                SplittableRandom random = new SplittableRandom(seed ^ (chunk * 0x9E3779B97F4A7C15L));
+                long from = chunk * batchRows;
+                long to = Math.min(rows, from + batchRows);
+                for (long i = from; i < to; i++) {
+                    rowFactory.fill(startIndex + i, random, row);
+                    int target = router == null ? 0 : router.shardOfUsername((String) row[0]);
+                    writers[target].add(row);
+                }
+                long total = written.addAndGet(to - from);
+                if (total / 1_000_000 != (total - (to - from)) / 1_000_000) {
+                    double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+                    logger.info("已生成 {} 行，{} 行/秒", total, (long) (total / seconds));
+                }
+            }
+            for (BatchWriter writer : writers) {
+                writer.flush();
+            }
+        } finally {
+            for (BatchWriter writer : writers) {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+        }
+    }
+
+    private long firstFreeId(DataSource target, long minimum) throws SQLException {
+        try (Connection connection = target.getConnection(); Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT MAX(id) FROM users")) {
+            result.next();
+            return Math.max(minimum, result.getLong(1) + 1);
+        }
+    }
+
+    /**
+     * 删除 users 表的非唯一索引（主键和唯一约束保留，写入时仍需校验）
+     * @return 删除前从数据库元数据读出的索引定义，用于写完后重建
+     */
+    private List<IndexDefinition> dropSecondaryIndexes(DataSource target) throws SQLException {
+        try (Connection connection = target.getConnection(); Statement statement = connection.createStatement()) {
+            List<IndexDefinition> indexes = secondaryIndexes(connection);
+            for (IndexDefinition index : indexes) {
+                // 生成中断时可按日志中的语句手工恢复
+                logger.info("删除索引，写入完成后重建: {}", index.createSql());
+                statement.execute("DROP INDEX " + index.name() + " ON users");
+            }
+            return indexes;
+        }
+    }
+
+    private void createSecondaryIndexes(DataSource target, List<IndexDefinition> indexes, long nextId)
+            throws SQLException {
+        try (Connection connection = target.getConnection(); Statement statement = connection.createStatement()) {
+            Set<String> existing = new HashSet<>();
+            secondaryIndexes(connection).forEach(index -> existing.add(index.name()));
+            for (IndexDefinition index : indexes) {
+                if (!existing.contains(index.name())) {
+                    statement.execute(index.createSql());
+                }
+            }
+            statement.execute("ALTER TABLE users AUTO_INCREMENT = " + nextId);
+            statement.execute("ANALYZE TABLE users");
+        }
+    }
+
+    /**
+     * 生成的行绕过了注册量预聚合，清除回填标记，应用下次启动时重新回填（预聚合与用户写在同一分片）
+     */
+    private void resetSignupRollup(DataSource target) throws SQLException {
+        try (Connection connection = target.getConnection();
+             PreparedStatement statement = connection.prepareStatement("DELETE FROM rollup_backfill WHERE name = ?")) {
+            statement.setString(1, "user-signups");
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * 从数据库元数据读取 users 表的非唯一索引，列按索引中的顺序排列并保留升降序
+     */
+    private List<IndexDefinition> secondaryIndexes(Connection connection) throws SQLException {
+        Map<String, TreeMap<Short, String>> columnsByIndex = new LinkedHashMap<>();
+        try (ResultSet indexes = connection.getMetaData()
+                .getIndexInfo(connection.getCatalog(), null, "users", false, false)) {
+            while (indexes.next()) {
+                String name = indexes.getString("INDEX_NAME");
+                if (name == null || !indexes.getBoolean("NON_UNIQUE")
+                        || indexes.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+                    continue;
+                }
+                String column = indexes.getString("COLUMN_NAME");
+                if ("D".equals(indexes.getString("ASC_OR_DESC"))) {
+                    column += " DESC";
+                }
+                columnsByIndex.computeIfAbsent(name, k -> new TreeMap<>())
+                        .put(indexes.getShort("ORDINAL_POSITION"), column);
+            }
+        }
+        List<IndexDefinition> definitions = new ArrayList<>(columnsByIndex.size());
+        columnsByIndex.forEach((name, columns) ->
+                definitions.add(new IndexDefinition(name, new ArrayList<>(columns.values()))));
+        return definitions;
+    }
+
+    /**
+     * 从元数据读出的索引定义
+     */
+    private record IndexDefinition(String name, List<String> columns) {
+
+        String createSql() {
+            return "CREATE INDEX " + name + " ON users (" + String.join(", ", columns) + ")";
+        }
+    }
+
+    /**
+     * 按配置的分布生成单行数据
+     */
+    private class RowFactory {
+
+        private final String[] passwords;
+        private final String[] prefixes;
+        private final double[] prefixCdf;
+        private final LocalDateTime now;
+        private final long historySeconds;
+
+        RowFactory(String[] passwords, LocalDateTime now) {
+            this.passwords = passwords;
+            this.now = now;
+            this.historySeconds = historyDays * 86_400L;
+            this.prefixes = new String[prefixCount];
+            this.prefixCdf = new double[prefixCount];
+            double sum = 0;
+            for (int rank = 0; rank < prefixCount; rank++) {
+                prefixes[rank] = prefix(rank);
+                sum += 1 / Math.pow(rank + 1, zipfExponent);
+                prefixCdf[rank] = sum;
+            }
+            for (int rank = 0; rank < prefixCount; rank++) {
+                prefixCdf[rank] /= sum;
+            }
+        }
+
+        void fill(long index, SplittableRandom random, Object[] row) {
+            int rank = Arrays.binarySearch(prefixCdf, random.nextDouble());
+            String prefix = prefixes[Math.min(rank < 0 ? -rank - 1 : rank, prefixCount - 1)];
+
+            // 注册量随时间增长：距今时长取 (1 - √u)，越近越密集
+            long age = (long) (historySeconds * (1 - Math.sqrt(random.nextDouble())));
+            LocalDateTime createdAt = now.minusSeconds(age);
+
+            row[0] = prefix + "_" + index;
+            row[1] = passwords[(int) (index % passwords.length)];
+            row[2] = random.nextDouble() < adminRatio ? "ADMIN" : "USER";
+            row[3] = Timestamp.valueOf(createdAt);
+            row[4] = row[3];
+            if (random.nextDouble() < activeRatio) {
+                // 最近登录时间偏向当前，登录次数近似几何分布
+                long idle = (long) (age * Math.pow(random.nextDouble(), 3));
+                row[5] = Timestamp.valueOf(now.minusSeconds(idle));
+                row[6] = 1 + (long) (Math.log(1 - random.nextDouble()) / Math.log(0.9));
+            } else {
+                row[5] = null;
+                row[6] = null;
+            }
+        }
+
+        private String prefix(int rank) {
+            StringBuilder prefix = new StringBuilder();
+            int value = rank;
+            do {
+                prefix.append(SYLLABLES[value % SYLLABLES.length]);
+                value /= SYLLABLES.length;
+            } while (value > 0);
+            return prefix.toString();
+        }
+    }
+
+    /**
+     * 单个目标库的多行 INSERT 写入器，每条语句单独提交
+     */
+    private static class BatchWriter {
+
+        private final Connection connection;
+        private final AtomicLong nextId;
+        private final PreparedStatement fullBatch;
+        private final Object[] buffer;
+        private final int batchRows;
+        private int size;
+
+        BatchWriter(Connection connection, AtomicLong nextId, int batchRows) throws SQLException {
+            this.connection = connection;
+            this.nextId = nextId;
+            this.batchRows = batchRows;
+            this.buffer = new Object[batchRows * COLUMNS];
+            connection.setAutoCommit(false);
+            this.fullBatch = connection.prepareStatement(insertSql(batchRows));
+        }
+
+        void add(Object[] row) throws SQLException {
+            System.arraycopy(row, 0, buffer, size * COLUMNS, COLUMNS);
+            if (++size == batchRows) {
+                execute(fullBatch);
+            }
+        }
+
+        void flush() throws SQLException {
+            if (size > 0) {
+                try (PreparedStatement partial = connection.prepareStatement(insertSql(size))) {
+                    execute(partial);
+                }
+            }
+        }
+
+        private void execute(PreparedStatement statement) throws SQLException {
+            long id = nextId.getAndAdd(size);
+            int parameter = 1;
+            for (int i = 0; i < size * COLUMNS; i++) {
+                if (i % COLUMNS == 0) {
+                    statement.setLong(parameter++, id++);
+                }
+                Object value = buffer[i];
+                if (value == null) {
+                    statement.setNull(parameter++, i % COLUMNS == 5 ? Types.TIMESTAMP : Types.BIGINT);
+                } else {
+                    statement.setObject(parameter++, value);
+                }
+            }
+            statement.executeUpdate();
+            connection.commit();
+            size = 0;
+        }
+
+        void close() throws SQLException {
+            try {
+                fullBatch.close();
+            } finally {
+                connection.close();
+            }
+        }
+
+        private static String insertSql(int rowCount) {
+            StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rowCount * (ROW_PLACEHOLDERS.length() + 2));
+            sql.append(INSERT_PREFIX);
+            for (int i = 0; i < rowCount; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(ROW_PLACEHOLDERS);
+            }
+            return sql.toString();
+        }
+    }
+}
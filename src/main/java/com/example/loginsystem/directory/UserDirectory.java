@@ -0,0 +1,712 @@
+package com.example.loginsystem.directory;
+
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+import com.example.loginsystem.event.LoginActivityFlushedEvent;
+import com.example.loginsystem.event.UserChangeEvent;
+import com.example.loginsystem.event.UserInvalidationEvent;
+import com.example.loginsystem.repository.UserField;
+import com.example.loginsystem.sharding.ShardRouter;
+import com.example.loginsystem.sharding.ShardRoutingDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * 内存用户目录（只读副本）
+ * 保存除密码外的全部用户数据，按列存放在基本类型数组中（每个用户一个槽位，不创建 User 对象），
+ * 并维护ID、用户名（不区分大小写）和角色索引，开启后 UserService 的查询直接由内存返回。
+ * <p>
+ * 启动时以JDBC流式读取加载（开启分片时逐个分片加载）；之后由本节点的 UserChangeEvent、
+ * 变更日志的 UserInvalidationEvent（按ID重新读取）和登录活动回写事件保持更新。
+ * 其他节点的登录统计不产生变更日志，只有在该用户再次变更或重启后才会同步。
+ * 每个槽位记录登录统计的读取时间，回写事件据此跳过重新读取时已包含的批次，避免重复累加。
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.user-directory", name = "enabled", havingValue = "true")
+public class UserDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectory.class);
+
+    private static final String SELECT_SQL =
+            "SELECT id, username, role, created_at, updated_at, last_login_at, login_count FROM users";
+
+    private static final UserRole[] ROLES = UserRole.values();
+
+    // 时间列和登录次数中表示 null 的值
+    private static final long NULL_VALUE = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectProvider<ShardRouter> shardRouter;
+
+    @Autowired
+    private ObjectProvider<ShardRoutingDataSource> shardRoutingDataSource;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 列存储，下标为槽位；ids[slot] == 0 表示空槽位
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private String[] usernames = new String[INITIAL_CAPACITY];
+    // 小写用户名，已是小写时与 usernames 为同一对象
+    private String[] usernameKeys = new String[INITIAL_CAPACITY];
+    private byte[] roles = new byte[INITIAL_CAPACITY];
+    // 时间以 UTC 纪元微秒保存（LocalDateTime 不含时区，只用于编码）
+    private long[] createdAt = new long[INITIAL_CAPACITY];
+    private long[] updatedAt = new long[INITIAL_CAPACITY];
+    private long[] lastLoginAt = new long[INITIAL_CAPACITY];
+    private long[] loginCounts = new long[INITIAL_CAPACITY];
+    // 登录统计已包含此时间（System.nanoTime）之前提交的本节点回写
+    private long[] statsReadAt = new long[INITIAL_CAPACITY];
+
+    // 已使用的最大槽位数，及被删除后可复用的槽位
+    private int slotCount;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    private final LongIntHashMap idIndex = new LongIntHashMap(INITIAL_CAPACITY);
+    private final UsernameIndex usernameIndex = new UsernameIndex();
+    private final int[] roleCounts = new int[ROLES.length];
+
+    // 按 (createdAt, id) 升序排列的槽位，倒序遍历即为列表接口的顺序
+    private final SortedSlots allSlots = new SortedSlots(null);
+    private final SortedSlots[] roleSlots = new SortedSlots[ROLES.length];
+
+    public UserDirectory() {
+        for (UserRole role : ROLES) {
+            roleSlots[role.ordinal()] = new SortedSlots(role);
+        }
+    }
+
+    @PostConstruct
+    public void load() throws SQLException {
+        long start = System.nanoTime();
+        ShardRoutingDataSource shards = shardRoutingDataSource.getIfAvailable();
+        ShardRouter router = shardRouter.getIfAvailable();
+        if (shards != null && router != null) {
+            for (int shard = 0; shard < router.getShardCount(); shard++) {
+                loadFrom(shards.getShard(shard));
+            }
+        } else {
+            loadFrom(dataSource);
+        }
+
+        Gauge.builder("users.directory.size", this, UserDirectory::size)
+                .description("内存用户目录中的用户数")
+                .register(meterRegistry);
+        Gauge.builder("users.directory.bytes", this, UserDirectory::footprint)
+                .description("内存用户目录的估算占用")
+                .register(meterRegistry);
+
+        int users = size();
+        long bytes = footprint();
+        logger.info("用户目录加载完成，用户数: {}，耗时: {} ms，估算内存: {} KB（{} 字节/用户）", users,
+                (System.nanoTime() - start) / 1_000_000, bytes / 1024, users == 0 ? 0 : bytes / users);
+    }
+
+    private void loadFrom(DataSource source) throws SQLException {
+        try (Connection connection = source.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_SQL,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // MySQL 驱动只有 fetchSize 为 Integer.MIN_VALUE 时才逐行流式读取
+            boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+            statement.setFetchSize(mysql ? Integer.MIN_VALUE : 1000);
+            long readAt = System.nanoTime();
+            try (ResultSet rs = statement.executeQuery()) {
+                lock.writeLock().lock();
+                try {
+                    while (rs.next()) {
+                        put(rs, readAt);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- 查询
+
+    /**
+     * 根据ID查找用户
+     * @return 不含密码的用户，不存在时返回null
+     */
+    public User findById(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = idIndex.get(id);
+            return slot < 0 ? null : materialize(slot, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 根据用户名查找用户（不区分大小写，与 MySQL 默认排序规则一致）
+     * @return 不含密码的用户，不存在时返回null
+     */
+    public User findByUsername(String username) {
+        lock.readLock().lock();
+        try {
+            int slot = usernameIndex.get(username.toLowerCase(Locale.ROOT));
+            return slot < 0 ? null : materialize(slot, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean existsByUsername(String username) {
+        lock.readLock().lock();
+        try {
+            return usernameIndex.get(username.toLowerCase(Locale.ROOT)) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countByRole(UserRole role) {
+        lock.readLock().lock();
+        try {
+            return roleCounts[role.ordinal()];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 所有用户，按创建时间降序
+     * @param fields 返回的字段，null 表示全部
+     */
+    public List<User> findAll(Set<UserField> fields) {
+        return list(allSlots, slot -> true, fields);
+    }
+
+    /**
+     * 指定角色的用户，按创建时间降序
+     * @param fields 返回的字段，null 表示全部
+     */
+    public List<User> findByRole(UserRole role, Set<UserField> fields) {
+        return list(roleSlots[role.ordinal()], slot -> true, fields);
+    }
+
+    /**
+     * 用户名包含关键词的用户（不区分大小写），按创建时间降序
+     * @param fields 返回的字段，null 表示全部
+     */
+    public List<User> search(String keyword, Set<UserField> fields) {
+        String key = keyword.toLowerCase(Locale.ROOT);
+        return list(allSlots, slot -> usernameKeys[slot].contains(key), fields);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return idIndex.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 估算占用的堆内存（数组和用户名字符串，按压缩指针计算）
+     */
+    public long footprint() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            int capacity = ids.length;
+            // 9个列数组：6个 long、2个引用、1个 byte
+            bytes += (long) capacity * (6 * Long.BYTES + 2 * Integer.BYTES + 1);
+            bytes += (long) freeSlots.length * Integer.BYTES;
+            bytes += idIndex.footprint() + usernameIndex.footprint();
+            bytes += allSlots.footprint();
+            for (SortedSlots order : roleSlots) {
+                bytes += order.footprint();
+            }
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (ids[slot] != 0) {
+                    bytes += stringFootprint(usernames[slot]);
+                    if (usernameKeys[slot] != usernames[slot]) {
+                        bytes += stringFootprint(usernameKeys[slot]);
+                    }
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<User> list(SortedSlots order, IntPredicate filter, Set<UserField> fields) {
+        while (true) {
+            if (order.dirty) {
+                lock.writeLock().lock();
+                try {
+                    order.rebuild();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            lock.readLock().lock();
+            try {
+                if (order.dirty) {
+                    // 重建后又有写入，重试
+                    continue;
+                }
+                List<User> result = new ArrayList<>();
+                for (int i = order.size - 1; i >= 0; i--) {
+                    int slot = order.slots[i];
+                    if (filter.test(slot)) {
+                        result.add(materialize(slot, fields));
+                    }
+                }
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private User materialize(int slot, Set<UserField> fields) {
+        User user = new User();
+        // 构造函数会填充时间戳，未选中或为空的字段必须为null
+        user.setCreatedAt(null);
+        user.setUpdatedAt(null);
+        if (selected(fields, UserField.ID)) {
+            user.setId(ids[slot]);
+        }
+        if (selected(fields, UserField.USERNAME)) {
+            user.setUsername(usernames[slot]);
+        }
+        if (selected(fields, UserField.ROLE)) {
+            user.setRole(ROLES[roles[slot]]);
+        }
+        if (selected(fields, UserField.CREATED_AT)) {
+            user.setCreatedAt(toDateTime(createdAt[slot]));
+        }
+        if (selected(fields, UserField.UPDATED_AT)) {
+            user.setUpdatedAt(toDateTime(updatedAt[slot]));
+        }
+        if (selected(fields, UserField.LAST_LOGIN_AT)) {
+            user.setLastLoginAt(toDateTime(lastLoginAt[slot]));
+        }
+        if (selected(fields, UserField.LOGIN_COUNT) && loginCounts[slot] != NULL_VALUE) {
+            user.setLoginCount(loginCounts[slot]);
+        }
+        return user;
+    }
+
+    private static boolean selected(Set<UserField> fields, UserField field) {
+        return fields == null || fields.contains(field);
+    }
+
+    // ---------------------------------------------------------------- 更新
+
+    /**
+     * 本节点的写操作在事务提交后立即生效（读己之写）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChange(UserChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.getType() == UserChangeEvent.Type.DELETED) {
+                remove(event.getUserId());
+                return;
+            }
+            int slot = idIndex.get(event.getUserId());
+            // 事件中没有登录统计，保留目录中已有的值
+            long lastLogin = slot < 0 ? NULL_VALUE : lastLoginAt[slot];
+            long loginCount = slot < 0 ? NULL_VALUE : loginCounts[slot];
+            long readAt = slot < 0 ? System.nanoTime() : statsReadAt[slot];
+            put(event.getUserId(), event.getUsername(), event.getRole(),
+                    toMicros(event.getCreatedAt()), toMicros(event.getUpdatedAt()), lastLogin, loginCount, readAt);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 变更日志（包括其他节点的写操作）：按ID重新读取该用户
+     */
+    @EventListener
+    public void onInvalidation(UserInvalidationEvent event) {
+        Long id = event.getUserId();
+        if (id == null) {
+            return;
+        }
+        try {
+            reload(id);
+        } catch (SQLException e) {
+            logger.error("用户目录重新读取用户失败，ID: {}", id, e);
+        }
+    }
+
+    /**
+     * 登录统计批量回写后同步到目录
+     * 回写提交后才重新读取的用户已包含本批次，跳过；读取与回写重叠的用户无法判断，再读取一次。
+     */
+    @EventListener
+    public void onLoginsFlushed(LoginActivityFlushedEvent event) {
+        List<Long> overlapped = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            for (LoginActivityFlushedEvent.Login login : event.getLogins()) {
+                int slot = idIndex.get(login.userId());
+                if (slot < 0 || statsReadAt[slot] - event.getCommittedNanos() >= 0) {
+                    continue;
+                }
+                if (statsReadAt[slot] - event.getStartedNanos() > 0) {
+                    overlapped.add(login.userId());
+                    continue;
+                }
+                long previous = loginCounts[slot] == NULL_VALUE ? 0 : loginCounts[slot];
+                loginCounts[slot] = previous + login.count();
+                lastLoginAt[slot] = Math.max(lastLoginAt[slot], toMicros(login.lastLoginAt()));
+                statsReadAt[slot] = event.getCommittedNanos();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        for (Long id : overlapped) {
+            try {
+                reload(id);
+            } catch (SQLException e) {
+                logger.error("用户目录重新读取用户失败，ID: {}", id, e);
+            }
+        }
+    }
+
+    private void reload(long id) throws SQLException {
+        ShardRouter router = shardRouter.getIfAvailable();
+        ShardRoutingDataSource shards = shardRoutingDataSource.getIfAvailable();
+        DataSource source = dataSource;
+        if (router != null && shards != null) {
+            int shard = router.shardOfId(id);
+            if (shard < 0) {
+                return;
+            }
+            source = shards.getShard(shard);
+        }
+        try (Connection connection = source.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_SQL + " WHERE id = ?")) {
+            statement.setLong(1, id);
+            long readAt = System.nanoTime();
+            try (ResultSet rs = statement.executeQuery()) {
+                lock.writeLock().lock();
+                try {
+                    if (rs.next()) {
+                        put(rs, readAt);
+                    } else {
+                        remove(id);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * 以查询结果新增或覆盖一个用户，调用方持有写锁
+     * @param readAt 开始查询的时间；目录中的登录统计更新（查询期间应用了回写）时保留目录中的值
+     */
+    private void put(ResultSet rs, long readAt) throws SQLException {
+        long id = rs.getLong(1);
+        long lastLogin = toMicros(rs.getObject(6, LocalDateTime.class));
+        long loginCount = rs.getLong(7);
+        if (rs.wasNull()) {
+            loginCount = NULL_VALUE;
+        }
+        int slot = idIndex.get(id);
+        if (slot >= 0 && statsReadAt[slot] - readAt > 0) {
+            lastLogin = lastLoginAt[slot];
+            loginCount = loginCounts[slot];
+            readAt = statsReadAt[slot];
+        }
+        put(id, rs.getString(2), UserRole.valueOf(rs.getString(3)),
+                toMicros(rs.getObject(4, LocalDateTime.class)),
+                toMicros(rs.getObject(5, LocalDateTime.class)),
+                lastLogin, loginCount, readAt);
+    }
+
+    /**
+     * 新增或覆盖一个用户，调用方持有写锁
+     */
+    void put(long id, String username, UserRole role, long created, long updated, long lastLogin, long loginCount,
+             long readAt) {
+        int slot = idIndex.get(id);
+        boolean added = slot < 0;
+        if (added) {
+            slot = allocateSlot();
+            ids[slot] = id;
+            idIndex.put(id, slot);
+        } else {
+            usernameIndex.remove(slot);
+            roleCounts[roles[slot]]--;
+            if (roles[slot] != role.ordinal() || createdAt[slot] != created) {
+                roleSlots[roles[slot]].dirty = true;
+                roleSlots[role.ordinal()].dirty = true;
+            }
+            if (createdAt[slot] != created) {
+                allSlots.dirty = true;
+            }
+        }
+
+        usernames[slot] = username;
+        usernameKeys[slot] = username.toLowerCase(Locale.ROOT);
+        roles[slot] = (byte) role.ordinal();
+        createdAt[slot] = created;
+        updatedAt[slot] = updated;
+        lastLoginAt[slot] = lastLogin;
+        loginCounts[slot] = loginCount;
+        statsReadAt[slot] = readAt;
+
+        usernameIndex.put(slot);
+        roleCounts[role.ordinal()]++;
+        if (added) {
+            allSlots.add(slot);
+            roleSlots[role.ordinal()].add(slot);
+        }
+    }
+
+    /**
+     * 删除一个用户，调用方持有写锁
+     */
+    void remove(long id) {
+        int slot = idIndex.get(id);
+        if (slot < 0) {
+            return;
+        }
+        idIndex.remove(id);
+        usernameIndex.remove(slot);
+        roleCounts[roles[slot]]--;
+        allSlots.dirty = true;
+        roleSlots[roles[slot]].dirty = true;
+
+        ids[slot] = 0;
+        usernames[slot] = null;
+        usernameKeys[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == ids.length) {
+            int capacity = ids.length + (ids.length >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            usernames = Arrays.copyOf(usernames, capacity);
+            usernameKeys = Arrays.copyOf(usernameKeys, capacity);
+            roles = Arrays.copyOf(roles, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            updatedAt = Arrays.copyOf(updatedAt, capacity);
+            lastLoginAt = Arrays.copyOf(lastLoginAt, capacity);
+            loginCounts = Arrays.copyOf(loginCounts, capacity);
+            statsReadAt = Arrays.copyOf(statsReadAt, capacity);
+        }
+        return slotCount++;
+    }
+
+    private static long toMicros(LocalDateTime value) {
+        if (value == null) {
+            return NULL_VALUE;
+        }
+        return value.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + value.getNano() / 1_000;
+    }
+
+    private static LocalDateTime toDateTime(long micros) {
+        if (micros == NULL_VALUE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static long stringFootprint(String value) {
+        // String 对象头与字段 24 字节，加上按8字节对齐的 byte[]（Latin-1 每字符1字节，否则2字节）
+        boolean latin1 = value.chars().allMatch(c -> c < 256);
+        long array = 16 + (long) value.length() * (latin1 ? 1 : 2);
+        return 24 + ((array + 7) & ~7L);
+    }
+
+    /**
+     * 用户名索引：开放寻址表中保存槽位，键取自 usernameKeys，不另外保存字符串
+     */
+    private final class UsernameIndex {
+
+        // 槽位 + 1，0 表示空位
+        private int[] table = new int[INITIAL_CAPACITY * 2];
+        private int size;
+
+        int get(String key) {
+            int mask = table.length - 1;
+            int index = spread(key.hashCode()) & mask;
+            while (table[index] != 0) {
+                int slot = table[index] - 1;
+                if (usernameKeys[slot].equals(key)) {
+                    return slot;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        void put(int slot) {
+            if ((size + 1) * 2 > table.length) {
+                resize();
+            }
+            insert(table, slot);
+            size++;
+        }
+
+        void remove(int slot) {
+            int mask = table.length - 1;
+            int index = spread(usernameKeys[slot].hashCode()) & mask;
+            while (table[index] != slot + 1) {
+                if (table[index] == 0) {
+                    return;
+                }
+                index = (index + 1) & mask;
+            }
+            int gap = index;
+            int next = (gap + 1) & mask;
+            while (table[next] != 0) {
+                int home = spread(usernameKeys[table[next] - 1].hashCode()) & mask;
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    table[gap] = table[next];
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            table[gap] = 0;
+            size--;
+        }
+
+        long footprint() {
+            return (long) table.length * Integer.BYTES;
+        }
+
+        private void insert(int[] target, int slot) {
+            int mask = target.length - 1;
+            int index = spread(usernameKeys[slot].hashCode()) & mask;
+            while (target[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            target[index] = slot + 1;
+        }
+
+        private void resize() {
+            int[] resized = new int[table.length * 2];
+            for (int entry : table) {
+                if (entry != 0) {
+                    insert(resized, entry - 1);
+                }
+            }
+            table = resized;
+        }
+
+        private int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * 按 (createdAt, id) 升序排列的槽位列表
+     * 新用户的创建时间通常最大，直接追加；其余变更（删除、改角色）标记为需要重建，由下一次列表查询重建。
+     */
+    private final class SortedSlots {
+
+        // 为null时包含所有用户
+        private final UserRole role;
+        private int[] slots = new int[16];
+        private int size;
+        private volatile boolean dirty;
+
+        SortedSlots(UserRole role) {
+            this.role = role;
+        }
+
+        void add(int slot) {
+            if (dirty) {
+                return;
+            }
+            if (size > 0 && compare(slots[size - 1], slot) > 0) {
+                dirty = true;
+                return;
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        /**
+         * 重新收集并排序，调用方持有写锁
+         */
+        void rebuild() {
+            if (!dirty) {
+                return;
+            }
+            Integer[] collected = new Integer[role == null ? idIndex.size() : roleCounts[role.ordinal()]];
+            int count = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (ids[slot] != 0 && (role == null || roles[slot] == role.ordinal())) {
+                    collected[count++] = slot;
+                }
+            }
+            Arrays.sort(collected, 0, count, this::compare);
+            if (slots.length < count) {
+                slots = new int[count];
+            }
+            for (int i = 0; i < count; i++) {
+                slots[i] = collected[i];
+            }
+            size = count;
+            dirty = false;
+        }
+
+        long footprint() {
+            return (long) slots.length * Integer.BYTES;
+        }
+
+        private int compare(int left, int right) {
+            int byCreatedAt = Long.compare(createdAt[left], createdAt[right]);
+            return byCreatedAt != 0 ? byCreatedAt : Long.compare(ids[left], ids[right]);
+        }
+    }
+}
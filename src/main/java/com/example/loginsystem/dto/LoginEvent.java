@@ -0,0 +1,65 @@
+package com.example.loginsystem.dto;
+
+import com.example.loginsystem.journal.LoginOutcome;
+
+import java.time.LocalDateTime;
+
+/**
+ * 登录事件DTO（一次登录尝试）
+ */
+public class LoginEvent {
+
+    private final long seq;
+
+    private final LocalDateTime occurredAt;
+
+    private final String username;
+
+    private final LoginOutcome outcome;
+
+    private final String clientIp;
+
+    private final long latencyMicros;
+
+    private final Long userId;
+
+    public LoginEvent(long seq, LocalDateTime occurredAt, String username, LoginOutcome outcome,
+                      String clientIp, long latencyMicros, Long userId) {
+        this.seq = seq;
+        this.occurredAt = occurredAt;
+        this.username = username;
+        this.outcome = outcome;
+        this.clientIp = clientIp;
+        this.latencyMicros = latencyMicros;
+        this.userId = userId;
+    }
+
+    // Getter方法
+    public long getSeq() {
+        return seq;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public LoginOutcome getOutcome() {
+        return outcome;
+    }
+
+    public String getClientIp() {
+        return clientIp;
+    }
+
+    public long getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
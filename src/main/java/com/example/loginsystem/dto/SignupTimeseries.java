@@ -0,0 +1,110 @@
+package com.example.loginsystem.dto;
+
+import com.example.loginsystem.entity.UserRole;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 注册量时间序列DTO
+ * buckets 按起始时间升序排列，只包含有用户的桶；byRole 为该桶内各角色的用户数
+ */
+public class SignupTimeseries {
+
+    /**
+     * 时间粒度；HOUR、DAY 直接读取预聚合，MONTH 由 DAY 汇总
+     */
+    public enum Granularity {
+        HOUR, DAY, MONTH;
+
+        /**
+         * 时间所在桶的起始时间
+         */
+        public LocalDateTime truncate(LocalDateTime time) {
+            return switch (this) {
+                case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+                case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+                case MONTH -> time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+            };
+        }
+
+        /**
+         * 下一个桶的起始时间
+         */
+        public LocalDateTime next(LocalDateTime bucketStart) {
+            return switch (this) {
+                case HOUR -> bucketStart.plusHours(1);
+                case DAY -> bucketStart.plusDays(1);
+                case MONTH -> bucketStart.plusMonths(1);
+            };
+        }
+    }
+
+    private final Granularity granularity;
+
+    private final LocalDateTime from;
+
+    private final LocalDateTime to;
+
+    private final long total;
+
+    private final List<Bucket> buckets;
+
+    public SignupTimeseries(Granularity granularity, LocalDateTime from, LocalDateTime to, List<Bucket> buckets) {
+        this.granularity = granularity;
+        this.from = from;
+        this.to = to;
+        this.buckets = buckets;
+        this.total = buckets.stream().mapToLong(Bucket::getTotal).sum();
+    }
+
+    // Getter方法
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public List<Bucket> getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * 一个时间桶
+     */
+    public static class Bucket {
+
+        private final LocalDateTime start;
+
+        private final Map<UserRole, Long> byRole;
+
+        public Bucket(LocalDateTime start, Map<UserRole, Long> byRole) {
+            this.start = start;
+            this.byRole = byRole;
+        }
+
+        public LocalDateTime getStart() {
+            return start;
+        }
+
+        public long getTotal() {
+            return byRole.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        public Map<UserRole, Long> getByRole() {
+            return byRole;
+        }
+    }
+}
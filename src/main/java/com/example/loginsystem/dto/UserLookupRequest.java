@@ -0,0 +1,49 @@
+package com.example.loginsystem.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量查询用户请求DTO
+ * ids 和 usernames 可同时提供，合计不超过 app.lookup.max-keys 个
+ */
+public class UserLookupRequest {
+
+    private List<Long> ids = new ArrayList<>();
+
+    private List<String> usernames = new ArrayList<>();
+
+    // 默认构造函数
+    public UserLookupRequest() {}
+
+    // 带参构造函数
+    public UserLookupRequest(List<Long> ids, List<String> usernames) {
+        this.ids = ids != null ? ids : new ArrayList<>();
+        this.usernames = usernames != null ? usernames : new ArrayList<>();
+    }
+
+    // Getter和Setter方法
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids != null ? ids : new ArrayList<>();
+    }
+
+    public List<String> getUsernames() {
+        return usernames;
+    }
+
+    public void setUsernames(List<String> usernames) {
+        this.usernames = usernames != null ? usernames : new ArrayList<>();
+    }
+
+    @Override
+    public String toString() {
+        return "UserLookupRequest{" +
+                "ids=" + ids.size() +
+                ", usernames=" + usernames.size() +
+                '}';
+    }
+}
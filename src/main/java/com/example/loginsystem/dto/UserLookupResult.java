@@ -0,0 +1,38 @@
+package com.example.loginsystem.dto;
+
+import com.example.loginsystem.entity.User;
+
+import java.util.List;
+
+/**
+ * 批量查询用户结果DTO
+ * users 先按请求中 ids 的顺序、再按 usernames 的顺序排列，重复的用户只出现一次；
+ * 未找到的ID和用户名分别列在 missingIds、missingUsernames 中
+ */
+public class UserLookupResult {
+
+    private final List<User> users;
+
+    private final List<Long> missingIds;
+
+    private final List<String> missingUsernames;
+
+    public UserLookupResult(List<User> users, List<Long> missingIds, List<String> missingUsernames) {
+        this.users = users;
+        this.missingIds = missingIds;
+        this.missingUsernames = missingUsernames;
+    }
+
+    // Getter方法
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+
+    public List<String> getMissingUsernames() {
+        return missingUsernames;
+    }
+}
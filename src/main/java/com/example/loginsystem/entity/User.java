@@ -30,6 +30,13 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // 登录统计字段由 LoginActivityRecorder 批量回写，实体保存时不覆盖
+    @Column(name = "last_login_at", insertable = false, updatable = false)
+    private LocalDateTime lastLoginAt;
+
+    @Column(name = "login_count", insertable = false, updatable = false)
+    private Long loginCount;
+
     // 默认构造函数
     public User() {
         this.createdAt = LocalDateTime.now();
@@ -44,6 +51,27 @@ public class User {
         this.role = role;
     }
 
+    // 还原已有用户的构造函数（不含密码），不填充时间戳
+    public User(Long id, String username, UserRole role, LocalDateTime createdAt, LocalDateTime updatedAt,
+                LocalDateTime lastLoginAt, Long loginCount) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.lastLoginAt = lastLoginAt;
+        this.loginCount = loginCount;
+    }
+
+    /**
+     * 复制全部字段，得到一个不受持久化上下文管理的新对象
+     */
+    public User copy() {
+        User copy = new User(id, username, role, createdAt, updatedAt, lastLoginAt, loginCount);
+        copy.password = password;
+        return copy;
+    }
+
     // JPA生命周期回调
     @PreUpdate
     protected void onUpdate() {
@@ -99,6 +127,22 @@ public class User {
         this.updatedAt = updatedAt;
     }
 
+    public LocalDateTime getLastLoginAt() {
+        return lastLoginAt;
+    }
+
+    public void setLastLoginAt(LocalDateTime lastLoginAt) {
+        this.lastLoginAt = lastLoginAt;
+    }
+
+    public Long getLoginCount() {
+        return loginCount;
+    }
+
+    public void setLoginCount(Long loginCount) {
+        this.loginCount = loginCount;
+    }
+
     @Override
     public String toString() {
         return "User{" +
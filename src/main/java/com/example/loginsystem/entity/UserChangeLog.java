@@ -0,0 +1,108 @@
+package com.example.loginsystem.entity;
+
+import com.example.loginsystem.event.UserChangeEvent;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 用户变更日志实体类
+ * 与用户写操作在同一事务中写入，各节点按序号增量拉取以失效本地状态。
+ */
+@Entity
+@Table(name = "user_change_log")
+public class UserChangeLog {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(length = 50)
+    private String username;
+
+    // 修改用户名时记录旧用户名，便于失效以旧用户名为键的状态
+    @Column(name = "previous_username", length = 50)
+    private String previousUsername;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 10)
+    private UserChangeEvent.Type changeType;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // 默认构造函数
+    public UserChangeLog() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // 带参构造函数
+    public UserChangeLog(UserChangeEvent.Type changeType, Long userId, String username, String previousUsername) {
+        this();
+        this.changeType = changeType;
+        this.userId = userId;
+        this.username = username;
+        this.previousUsername = previousUsername;
+    }
+
+    // Getter和Setter方法
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPreviousUsername() {
+        return previousUsername;
+    }
+
+    public void setPreviousUsername(String previousUsername) {
+        this.previousUsername = previousUsername;
+    }
+
+    public UserChangeEvent.Type getChangeType() {
+        return changeType;
+    }
+
+    public void setChangeType(UserChangeEvent.Type changeType) {
+        this.changeType = changeType;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "UserChangeLog{" +
+                "seq=" + seq +
+                ", userId=" + userId +
+                ", username='" + username + '\'' +
+                ", changeType=" + changeType +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.loginsystem.event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 登录活动回写事件
+ * 由 LoginActivityRecorder 在一批登录统计成功写回数据库后发布，
+ * 保存了登录统计副本的组件（如内存用户目录）监听后同步。
+ * 事件中是本批次的增量，并带有回写开始和完成的时间（System.nanoTime），
+ * 副本可据此判断在回写期间重新读取的数据是否已包含本批次。
+ */
+public class LoginActivityFlushedEvent {
+
+    private final List<Login> logins;
+
+    // 开始回写的时间，此前读取的数据不包含本批次
+    private final long startedNanos;
+
+    // 回写已提交的时间，此后读取的数据一定包含本批次
+    private final long committedNanos;
+
+    public LoginActivityFlushedEvent(List<Login> logins, long startedNanos, long committedNanos) {
+        this.logins = logins;
+        this.startedNanos = startedNanos;
+        this.committedNanos = committedNanos;
+    }
+
+    // Getter方法
+    public List<Login> getLogins() {
+        return logins;
+    }
+
+    public long getStartedNanos() {
+        return startedNanos;
+    }
+
+    public long getCommittedNanos() {
+        return committedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "LoginActivityFlushedEvent{" +
+                "logins=" + logins.size() +
+                '}';
+    }
+
+    /**
+     * 一个用户本批次的登录统计
+     * @param userId 用户ID
+     * @param count 本批次的登录次数
+     * @param lastLoginAt 本批次最后一次登录时间
+     */
+    public record Login(long userId, int count, LocalDateTime lastLoginAt) {
+    }
+}
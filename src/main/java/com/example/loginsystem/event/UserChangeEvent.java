@@ -0,0 +1,94 @@
+package com.example.loginsystem.event;
+
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户变更事件
+ * 由 UserService 在写操作中发布，事务提交后再分发给订阅者。
+ */
+public class UserChangeEvent {
+
+    /**
+     * 变更类型
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Long userId;
+    private final String username;
+    private final UserRole role;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+
+    private UserChangeEvent(Type type, Long userId, String username, UserRole role,
+                            LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.type = type;
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    // 用户创建事件
+    public static UserChangeEvent created(User user) {
+        return of(Type.CREATED, user);
+    }
+
+    // 用户更新事件
+    public static UserChangeEvent updated(User user) {
+        return of(Type.UPDATED, user);
+    }
+
+    // 用户删除事件
+    public static UserChangeEvent deleted(User user) {
+        return of(Type.DELETED, user);
+    }
+
+    private static UserChangeEvent of(Type type, User user) {
+        return new UserChangeEvent(type, user.getId(), user.getUsername(), user.getRole(),
+                user.getCreatedAt(), user.getUpdatedAt());
+    }
+
+    // Getter方法
+    public Type getType() {
+        return type;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public UserRole getRole() {
+        return role;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "UserChangeEvent{" +
+                "type=" + type +
+                ", userId=" + userId +
+                ", username='" + username + '\'' +
+                ", role=" + role +
+                '}';
+    }
+}
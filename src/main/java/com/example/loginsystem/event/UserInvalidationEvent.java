@@ -0,0 +1,56 @@
+package com.example.loginsystem.event;
+
+/**
+ * 用户失效事件
+ * 由 UserChangeLogTailer 根据变更日志发布（包括其他节点的写操作），
+ * 持有用户相关本地状态（缓存、用户名集合等）的组件监听后自行失效。
+ */
+public class UserInvalidationEvent {
+
+    private final long seq;
+    private final UserChangeEvent.Type type;
+    private final Long userId;
+    private final String username;
+    private final String previousUsername;
+
+    public UserInvalidationEvent(long seq, UserChangeEvent.Type type, Long userId,
+                                 String username, String previousUsername) {
+        this.seq = seq;
+        this.type = type;
+        this.userId = userId;
+        this.username = username;
+        this.previousUsername = previousUsername;
+    }
+
+    // Getter方法
+    public long getSeq() {
+        return seq;
+    }
+
+    public UserChangeEvent.Type getType() {
+        return type;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPreviousUsername() {
+        return previousUsername;
+    }
+
+    @Override
+    public String toString() {
+        return "UserInvalidationEvent{" +
+                "seq=" + seq +
+                ", type=" + type +
+                ", userId=" + userId +
+                ", username='" + username + '\'' +
+                ", previousUsername='" + previousUsername + '\'' +
+                '}';
+    }
+}
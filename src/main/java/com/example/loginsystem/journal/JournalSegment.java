@@ -0,0 +1,325 @@
+package com.example.loginsystem.journal;
+
+import com.example.loginsystem.dto.LoginEvent;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 登录事件日志的一个段文件
+ * 文件按固定 256 字节一条记录映射到内存，写入线程以 CAS 领取槽位后直接写入映射区，不分配对象；
+ * 记录头的状态字最后以 release 语义写入，读取方看到已提交状态后即可读到完整记录。
+ * <pre>
+ *   0  int    状态（COMMITTED 表示已提交，0 表示空或未写完）
+ *   4  byte   结果
+ *   5  byte   用户名字节数（UTF-8）
+ *   6  byte   客户端IP字节数
+ *   8  long   序号
+ *  16  long   发生时间（纪元毫秒）
+ *  24  long   耗时（纳秒）
+ *  32  long   用户ID（未知为0）
+ *  40  152字节 用户名
+ * 192  48字节  客户端IP
+ * 240  保留
+ * </pre>
+ */
+final class JournalSegment {
+
+    static final int RECORD_SIZE = 256;
+
+    static final String SUFFIX = ".seg";
+
+    static final String SHIPPED_SUFFIX = ".shipped";
+
+    private static final int COMMITTED = 0x4C4F4731;
+
+    private static final int OUTCOME = 4;
+    private static final int USERNAME_LENGTH = 5;
+    private static final int IP_LENGTH = 6;
+    private static final int SEQ = 8;
+    private static final int OCCURRED_AT = 16;
+    private static final int LATENCY = 24;
+    private static final int USER_ID = 32;
+    private static final int USERNAME = 40;
+    private static final int USERNAME_MAX = 152;
+    private static final int IP = 192;
+    private static final int IP_MAX = 48;
+
+    // 领取计数的最高位表示已封存，不再接受写入
+    private static final int SEALED = 1 << 31;
+
+    private static final VarHandle STATE = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final LoginOutcome[] OUTCOMES = LoginOutcome.values();
+
+    private final long baseSeq;
+    private final int capacity;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private final AtomicInteger claimed = new AtomicInteger();
+    private final AtomicInteger committed = new AtomicInteger();
+
+    private volatile Path path;
+    private volatile boolean shipped;
+
+    private JournalSegment(Path path, long baseSeq, int capacity, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.baseSeq = baseSeq;
+        this.capacity = capacity;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * 创建并预分配新的段文件
+     */
+    static JournalSegment create(Path directory, long baseSeq, int capacity) throws IOException {
+        Path path = directory.resolve(fileName(baseSeq, SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+        return new JournalSegment(path, baseSeq, capacity, channel, buffer);
+    }
+
+    /**
+     * 打开已有的段文件（上次运行留下的），以只读方式使用，已封存
+     */
+    static JournalSegment open(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        long baseSeq = Long.parseLong(name.substring(0, name.indexOf('.')));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int capacity = (int) (channel.size() / RECORD_SIZE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+        JournalSegment segment = new JournalSegment(path, baseSeq, capacity, channel, buffer);
+        // 已提交的记录是连续的前缀之外也可能有空洞（进程退出时未写完的槽位），按最后一条已提交记录计数
+        int count = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            if (segment.isCommitted(slot)) {
+                count = slot + 1;
+            }
+        }
+        segment.claimed.set(count | SEALED);
+        segment.committed.set(count);
+        segment.shipped = name.endsWith(SHIPPED_SUFFIX);
+        return segment;
+    }
+
+    static String fileName(long baseSeq, String suffix) {
+        return String.format("%020d%s", baseSeq, suffix);
+    }
+
+    /**
+     * 领取一个槽位
+     * @return 槽位，段已满或已封存时返回-1
+     */
+    int claim() {
+        while (true) {
+            int current = claimed.get();
+            if ((current & SEALED) != 0 || current >= capacity) {
+                return -1;
+            }
+            if (claimed.compareAndSet(current, current + 1)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * 写入一条记录并提交，不分配对象
+     */
+    void write(int slot, long epochMillis, CharSequence username, LoginOutcome outcome, CharSequence clientIp,
+               long latencyNanos, long userId) {
+        int base = slot * RECORD_SIZE;
+        try {
+            buffer.put(base + OUTCOME, (byte) outcome.ordinal());
+            buffer.put(base + USERNAME_LENGTH, (byte) putUtf8(base + USERNAME, username, USERNAME_MAX));
+            buffer.put(base + IP_LENGTH, (byte) putUtf8(base + IP, clientIp, IP_MAX));
+            buffer.putLong(base + SEQ, baseSeq + slot);
+            buffer.putLong(base + OCCURRED_AT, epochMillis);
+            buffer.putLong(base + LATENCY, latencyNanos);
+            buffer.putLong(base + USER_ID, userId);
+            STATE.setRelease(buffer, base, COMMITTED);
+        } finally {
+            committed.incrementAndGet();
+        }
+    }
+
+    /**
+     * 封存：之后的领取都会失败
+     * @return 已领取的槽位数
+     */
+    int seal() {
+        while (true) {
+            int current = claimed.get();
+            if ((current & SEALED) != 0 || claimed.compareAndSet(current, current | SEALED)) {
+                return current & ~SEALED;
+            }
+        }
+    }
+
+    boolean isSealed() {
+        return (claimed.get() & SEALED) != 0;
+    }
+
+    /**
+     * 已领取的槽位数
+     */
+    int count() {
+        return Math.min(claimed.get() & ~SEALED, capacity);
+    }
+
+    /**
+     * 已封存且所有领取了槽位的写入都已结束
+     */
+    boolean isQuiescent() {
+        return isSealed() && committed.get() >= count();
+    }
+
+    boolean isCommitted(int slot) {
+        return (int) STATE.getAcquire(buffer, slot * RECORD_SIZE) == COMMITTED;
+    }
+
+    /**
+     * 最后一条已提交记录的发生时间（纪元毫秒），没有记录时返回0
+     */
+    long lastOccurredAt() {
+        for (int slot = count() - 1; slot >= 0; slot--) {
+            if (isCommitted(slot)) {
+                return buffer.getLong(slot * RECORD_SIZE + OCCURRED_AT);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 读取一条已提交的记录
+     */
+    LoginEvent read(int slot, ZoneId zone) {
+        int base = slot * RECORD_SIZE;
+        return new LoginEvent(
+                buffer.getLong(base + SEQ),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong(base + OCCURRED_AT)), zone),
+                getString(base + USERNAME, buffer.get(base + USERNAME_LENGTH) & 0xFF),
+                OUTCOMES[buffer.get(base + OUTCOME)],
+                getString(base + IP, buffer.get(base + IP_LENGTH) & 0xFF),
+                buffer.getLong(base + LATENCY) / 1_000,
+                buffer.getLong(base + USER_ID) == 0 ? null : buffer.getLong(base + USER_ID));
+    }
+
+    /**
+     * 不分配对象的 UTF-8 编码，超长时在完整字符处截断
+     * @return 写入的字节数
+     */
+    private int putUtf8(int offset, CharSequence value, int max) {
+        if (value == null) {
+            return 0;
+        }
+        int pos = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            int codePoint = c;
+            if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                codePoint = Character.toCodePoint(c, value.charAt(++i));
+            } else if (Character.isSurrogate(c)) {
+                codePoint = '?';
+            }
+            if (codePoint < 0x80) {
+                if (pos + 1 > max) {
+                    break;
+                }
+                buffer.put(offset + pos++, (byte) codePoint);
+            } else if (codePoint < 0x800) {
+                if (pos + 2 > max) {
+                    break;
+                }
+                buffer.put(offset + pos++, (byte) (0xC0 | codePoint >> 6));
+                buffer.put(offset + pos++, (byte) (0x80 | codePoint & 0x3F));
+            } else if (codePoint < 0x10000) {
+                if (pos + 3 > max) {
+                    break;
+                }
+                buffer.put(offset + pos++, (byte) (0xE0 | codePoint >> 12));
+                buffer.put(offset + pos++, (byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put(offset + pos++, (byte) (0x80 | codePoint & 0x3F));
+            } else {
+                if (pos + 4 > max) {
+                    break;
+                }
+                buffer.put(offset + pos++, (byte) (0xF0 | codePoint >> 18));
+                buffer.put(offset + pos++, (byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put(offset + pos++, (byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put(offset + pos++, (byte) (0x80 | codePoint & 0x3F));
+            }
+        }
+        return pos;
+    }
+
+    private String getString(int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 把映射内容刷到磁盘，并把文件截断到实际使用的长度（按时间封存的段通常远未写满）
+     */
+    void compact() throws IOException {
+        buffer.force();
+        int count = count();
+        if ((long) count * RECORD_SIZE < channel.size()) {
+            channel.truncate((long) count * RECORD_SIZE);
+        }
+    }
+
+    /**
+     * 标记为已导入数据库
+     */
+    void markShipped() throws IOException {
+        Path target = path.resolveSibling(fileName(baseSeq, SHIPPED_SUFFIX));
+        Files.move(path, target);
+        path = target;
+        shipped = true;
+    }
+
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    long getBaseSeq() {
+        return baseSeq;
+    }
+
+    /**
+     * 下一个段的起始序号
+     */
+    long nextSeq() {
+        return baseSeq + count();
+    }
+
+    boolean isShipped() {
+        return shipped;
+    }
+
+    Path getPath() {
+        return path;
+    }
+}
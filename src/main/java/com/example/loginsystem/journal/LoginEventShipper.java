@@ -0,0 +1,149 @@
+package com.example.loginsystem.journal;
+
+import com.example.loginsystem.dto.LoginEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录事件导入
+ * 后台线程按段把封存的登录事件批量写入 login_events 表，一个段全部写入成功后才标记为已导入；
+ * 主键为 (node, seq)，导入后标记前进程退出导致的重复导入会被忽略。
+ * 分片模式下写在默认分片。
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.login-journal", name = "enabled", havingValue = "true")
+public class LoginEventShipper {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginEventShipper.class);
+
+    private static final String INSERT_SQL = "INSERT INTO login_events "
+            + "(node, seq, occurred_at, username, outcome, client_ip, latency_us, user_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE seq = seq";
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    @Autowired
+    private LoginJournal loginJournal;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.login-journal.ship-interval-ms:1000}")
+    private long shipIntervalMs;
+
+    @Value("${app.login-journal.batch-size:1000}")
+    private int batchSize;
+
+    // 多个节点写入同一张表时区分各自的序号
+    @Value("${app.login-journal.node-id:}")
+    private String nodeId;
+
+    private ScheduledExecutorService shipper;
+
+    private Counter shipped;
+
+    @PostConstruct
+    public void start() {
+        if (nodeId.isBlank()) {
+            nodeId = hostName();
+        }
+        shipped = Counter.builder("login.journal.shipped")
+                .description("已导入数据库的登录事件数")
+                .register(meterRegistry);
+        shipper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "login-event-shipper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        shipper.scheduleWithFixedDelay(this::shipQuietly, shipIntervalMs, shipIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shipper.shutdown();
+        try {
+            shipper.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        loginJournal.sealActive();
+        shipQuietly();
+    }
+
+    /**
+     * 导入所有已封存的段，并删除过期的已导入段
+     * @return 本次导入的事件数
+     */
+    public synchronized int ship() throws IOException {
+        loginJournal.sealIfStale();
+        loginJournal.applyRetention();
+        int total = 0;
+        for (JournalSegment segment : loginJournal.pendingShipment()) {
+            List<Object[]> batch = new ArrayList<>(batchSize);
+            for (int slot = 0; slot < segment.count(); slot++) {
+                if (!segment.isCommitted(slot)) {
+                    continue;
+                }
+                LoginEvent event = segment.read(slot, ZONE);
+                batch.add(new Object[]{nodeId, event.getSeq(), Timestamp.valueOf(event.getOccurredAt()),
+                        event.getUsername(), event.getOutcome().name(), event.getClientIp(),
+                        event.getLatencyMicros(), event.getUserId()});
+                if (batch.size() == batchSize) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                    total += batch.size();
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                total += batch.size();
+            }
+            loginJournal.markShipped(segment);
+        }
+        shipped.increment(total);
+        if (total > 0) {
+            logger.debug("登录事件导入完成，事件数: {}", total);
+        }
+        return total;
+    }
+
+    private void shipQuietly() {
+        try {
+            ship();
+        } catch (Exception e) {
+            // 段保留在本地，下次重试
+            logger.error("登录事件导入失败", e);
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "local";
+        }
+    }
+}
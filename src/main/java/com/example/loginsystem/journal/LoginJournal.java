@@ -0,0 +1,274 @@
+package com.example.loginsystem.journal;
+
+import com.example.loginsystem.dto.LoginEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 登录事件日志（只追加）
+ * 每次登录尝试写入本地磁盘上内存映射的段文件，登录线程上只有一次 CAS 和对映射区的写入，不访问数据库；
+ * 段写满或超过封存间隔后封存并换新段，封存的段由 {@link LoginEventShipper} 批量导入 login_events 表。
+ * 导入后的段供 {@link #recent} 查询，按记录数（更新的段已有 retained-records 条）和时间（retention-minutes）整段删除。
+ * 默认不开启；段文件目录只能被一个进程使用，同一台机器上的多个节点需各自配置目录。
+ * 记录写入映射区后由操作系统回写磁盘，进程崩溃不丢失；机器掉电时可能丢失尚未封存的段中最近的记录。
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.login-journal", name = "enabled", havingValue = "true")
+public class LoginJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginJournal.class);
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.login-journal.directory:data/login-journal}")
+    private String directory;
+
+    @Value("${app.login-journal.segment-records:65536}")
+    private int segmentRecords;
+
+    @Value("${app.login-journal.retained-records:262144}")
+    private long retainedRecords;
+
+    @Value("${app.login-journal.retention-minutes:60}")
+    private long retentionMinutes;
+
+    @Value("${app.login-journal.seal-interval-ms:5000}")
+    private long sealIntervalMs;
+
+    // 按起始序号升序：已导入的、待导入的、当前写入的
+    private final List<JournalSegment> segments = new CopyOnWriteArrayList<>();
+
+    private volatile JournalSegment active;
+
+    private volatile long activeSince;
+
+    private Path path;
+
+    private FileChannel lockChannel;
+
+    private FileLock lock;
+
+    private Counter dropped;
+
+    @PostConstruct
+    public void start() throws IOException {
+        path = Path.of(directory);
+        Files.createDirectories(path);
+        lockChannel = FileChannel.open(path.resolve("journal.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        lock = lockChannel.tryLock();
+        if (lock == null) {
+            throw new IllegalStateException("登录事件日志目录已被其他进程使用: " + path.toAbsolutePath());
+        }
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(path)) {
+            files = list.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.endsWith(JournalSegment.SUFFIX) || name.endsWith(JournalSegment.SHIPPED_SUFFIX);
+            }).sorted().toList();
+        }
+        for (Path file : files) {
+            segments.add(JournalSegment.open(file));
+        }
+        // 目录为空时从当前时间派生起始序号，清空目录后重建也不会与已导入的序号重复
+        long nextSeq = segments.isEmpty()
+                ? System.currentTimeMillis() * 1000
+                : segments.get(segments.size() - 1).nextSeq();
+        active = JournalSegment.create(path, nextSeq, segmentRecords);
+        activeSince = System.currentTimeMillis();
+        segments.add(active);
+        applyRetention();
+
+        dropped = Counter.builder("login.journal.dropped")
+                .description("写入失败而丢弃的登录事件数")
+                .register(meterRegistry);
+        Gauge.builder("login.journal.unshipped", this, LoginJournal::unshippedRecords)
+                .description("尚未导入数据库的登录事件数")
+                .register(meterRegistry);
+        Gauge.builder("login.journal.segments", segments, List::size)
+                .description("本地保留的段文件数")
+                .register(meterRegistry);
+        logger.info("登录事件日志已打开: {}，已有段 {} 个，待导入 {} 条", path.toAbsolutePath(),
+                files.size(), unshippedRecords());
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        // 当前段封存后留给下次启动导入
+        active.seal();
+        for (JournalSegment segment : segments) {
+            segment.close();
+        }
+        lock.release();
+        lockChannel.close();
+    }
+
+    /**
+     * 追加一条登录事件，不抛出异常、不访问数据库
+     * @param username 登录时提交的用户名
+     * @param outcome 结果
+     * @param clientIp 客户端IP，可为null
+     * @param latencyNanos 登录处理耗时
+     * @param userId 用户ID，用户不存在时为null
+     */
+    public void append(CharSequence username, LoginOutcome outcome, CharSequence clientIp,
+                       long latencyNanos, Long userId) {
+        long now = System.currentTimeMillis();
+        long id = userId != null ? userId : 0;
+        while (true) {
+            JournalSegment segment = active;
+            int slot = segment.claim();
+            if (slot >= 0) {
+                segment.write(slot, now, username, outcome, clientIp, latencyNanos, id);
+                return;
+            }
+            if (!rotate(segment)) {
+                dropped.increment();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 最近的登录事件（只读取本地段文件，按时间倒序）
+     * @param limit 最多返回条数
+     * @param username 只返回该用户名的事件（不区分大小写），为null时不过滤
+     * @param outcome 只返回该结果的事件，为null时不过滤
+     */
+    public List<LoginEvent> recent(int limit, String username, LoginOutcome outcome) {
+        List<LoginEvent> events = new ArrayList<>(Math.min(limit, 1024));
+        // 快照：遍历期间可能有段被删除
+        List<JournalSegment> snapshot = List.copyOf(segments);
+        for (int i = snapshot.size() - 1; i >= 0 && events.size() < limit; i--) {
+            JournalSegment segment = snapshot.get(i);
+            for (int slot = segment.count() - 1; slot >= 0 && events.size() < limit; slot--) {
+                if (!segment.isCommitted(slot)) {
+                    continue;
+                }
+                LoginEvent event = segment.read(slot, ZONE);
+                if ((username == null || username.equalsIgnoreCase(event.getUsername()))
+                        && (outcome == null || outcome == event.getOutcome())) {
+                    events.add(event);
+                }
+            }
+        }
+        return events;
+    }
+
+    /**
+     * 当前段有记录且已超过封存间隔时封存，使登录事件在有限时间内进入数据库
+     */
+    void sealIfStale() {
+        JournalSegment segment = active;
+        if (segment.count() > 0 && System.currentTimeMillis() - activeSince >= sealIntervalMs) {
+            rotate(segment);
+        }
+    }
+
+    /**
+     * 封存当前段（应用关闭前导入剩余事件）
+     */
+    void sealActive() {
+        JournalSegment segment = active;
+        if (segment.count() > 0) {
+            rotate(segment);
+        }
+    }
+
+    /**
+     * 已封存、写入已全部结束、尚未导入的段（按序号升序），返回前截断多余的预分配空间
+     */
+    List<JournalSegment> pendingShipment() throws IOException {
+        List<JournalSegment> pending = new ArrayList<>();
+        for (JournalSegment segment : segments) {
+            if (segment == active || segment.isShipped()) {
+                continue;
+            }
+            if (!segment.isQuiescent()) {
+                // 保持导入顺序，等待仍在写入的线程完成
+                break;
+            }
+            segment.compact();
+            pending.add(segment);
+        }
+        return pending;
+    }
+
+    /**
+     * 段已导入数据库，超出保留范围的旧段删除
+     */
+    void markShipped(JournalSegment segment) throws IOException {
+        segment.markShipped();
+        applyRetention();
+    }
+
+    long unshippedRecords() {
+        long records = 0;
+        for (JournalSegment segment : segments) {
+            if (!segment.isShipped()) {
+                records += segment.count();
+            }
+        }
+        return records;
+    }
+
+    private synchronized boolean rotate(JournalSegment expected) {
+        if (active != expected) {
+            return true;
+        }
+        expected.seal();
+        try {
+            JournalSegment next = JournalSegment.create(path, expected.nextSeq(), segmentRecords);
+            segments.add(next);
+            active = next;
+            activeSince = System.currentTimeMillis();
+            return true;
+        } catch (IOException e) {
+            logger.error("登录事件日志创建新段失败", e);
+            return false;
+        }
+    }
+
+    /**
+     * 删除已导入且超出保留范围的段：更新的段已有 retained-records 条记录，或最后一条记录早于 retention-minutes
+     */
+    synchronized void applyRetention() throws IOException {
+        long expireBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retentionMinutes);
+        long newer = 0;
+        List<JournalSegment> snapshot = List.copyOf(segments);
+        for (int i = snapshot.size() - 1; i >= 0; i--) {
+            JournalSegment segment = snapshot.get(i);
+            if (segment.isShipped() && (newer >= retainedRecords || segment.lastOccurredAt() < expireBefore)) {
+                segments.remove(segment);
+                segment.delete();
+                continue;
+            }
+            newer += segment.count();
+        }
+    }
+}
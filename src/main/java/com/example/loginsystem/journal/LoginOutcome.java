@@ -0,0 +1,19 @@
+package com.example.loginsystem.journal;
+
+/**
+ * 登录尝试的结果（按序号保存在日志记录中，只能在末尾追加）
+ */
+public enum LoginOutcome {
+
+    /** 登录成功 */
+    SUCCESS,
+
+    /** 密码错误 */
+    BAD_PASSWORD,
+
+    /** 用户不存在 */
+    UNKNOWN_USER,
+
+    /** 登录过程发生异常 */
+    ERROR
+}
@@ -0,0 +1,132 @@
+package com.example.loginsystem.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 自适应并发上限（梯度算法）
+ * 长期平均延迟作为"无排队"基线，每个采样窗口用 基线/窗口平均延迟 的比值（梯度）调整上限：
+ * 延迟上升说明请求开始排队，上限按比例收缩；延迟平稳时上限每个窗口增加 √limit，探测更多容量。
+ * 窗口内出现失败（5xx或异常）时额外乘性减小，对应数据库连接耗尽等不体现在延迟上的过载。
+ */
+public class AdaptiveLimit {
+
+    // 基线延迟的平滑窗口数
+    private static final int LONG_WINDOW = 100;
+
+    // 允许的延迟上升倍数，低于该倍数不视为排队
+    private static final double RTT_TOLERANCE = 1.5;
+
+    // 失败时的乘性减小系数
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final long windowNanos;
+    private final int minWindowSamples;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // 当前采样窗口，均由 this 保护
+    private long windowStart;
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+    private double longRtt;
+
+    public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, double smoothing,
+                         long windowNanos, int minWindowSamples) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.windowNanos = windowNanos;
+        this.minWindowSamples = minWindowSamples;
+        this.windowStart = System.nanoTime();
+    }
+
+    /**
+     * 尝试占用一个并发名额
+     * @return 是否成功；成功后必须调用 {@link #release}
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * 释放名额并记录本次请求的结果
+     * @param rttNanos 处理耗时
+     * @param dropped 是否失败（过载导致的5xx或异常）
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        synchronized (this) {
+            windowRttSum += rttNanos;
+            windowSamples++;
+            windowMaxInFlight = Math.max(windowMaxInFlight, current);
+            windowDropped |= dropped;
+
+            long now = System.nanoTime();
+            if (now - windowStart >= windowNanos && windowSamples >= minWindowSamples) {
+                update();
+                windowStart = now;
+                windowRttSum = 0;
+                windowSamples = 0;
+                windowMaxInFlight = 0;
+                windowDropped = false;
+            }
+        }
+    }
+
+    private void update() {
+        double shortRtt = (double) windowRttSum / windowSamples;
+        longRtt = longRtt == 0 ? shortRtt : longRtt + (shortRtt - longRtt) / LONG_WINDOW;
+        if (longRtt > shortRtt * 2) {
+            // 负载下降后基线较快回落，避免长时间高估
+            longRtt *= 0.95;
+        }
+
+        double newLimit;
+        if (windowDropped) {
+            newLimit = limit * BACKOFF_RATIO;
+        } else if (windowMaxInFlight < limit / 2) {
+            // 实际并发远低于上限时延迟不反映容量，不调整
+            return;
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRtt / shortRtt));
+            newLimit = limit * gradient + Math.sqrt(limit);
+            newLimit = limit * (1 - smoothing) + newLimit * smoothing;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    /**
+     * 当前并发上限
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * 当前处理中的请求数
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 已用名额比例
+     */
+    public double utilization() {
+        return (double) inFlight.get() / (int) limit;
+    }
+}
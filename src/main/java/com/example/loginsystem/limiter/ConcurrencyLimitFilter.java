@@ -0,0 +1,158 @@
+package com.example.loginsystem.limiter;
+
+import com.example.loginsystem.converter.ApiResponseWriter;
+import com.example.loginsystem.dto.ApiResponse;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户接口自适应并发限制
+ * 按接口分组维护并发上限，超出上限的请求立即返回 503，不在 Tomcat 队列和连接池中排队。
+ * 健康检查不受限制；登录繁忙（已用名额超过阈值）时优先拒绝查询类请求，把数据库连接留给登录。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApiResponseWriter apiResponseWriter;
+
+    @Value("${app.concurrency-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.concurrency-limit.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${app.concurrency-limit.min-limit:2}")
+    private int minLimit;
+
+    @Value("${app.concurrency-limit.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${app.concurrency-limit.smoothing:0.2}")
+    private double smoothing;
+
+    @Value("${app.concurrency-limit.window-ms:1000}")
+    private long windowMs;
+
+    @Value("${app.concurrency-limit.min-window-samples:10}")
+    private int minWindowSamples;
+
+    @Value("${app.concurrency-limit.read-shed-threshold:0.8}")
+    private double readShedThreshold;
+
+    @Value("${app.concurrency-limit.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    private final Map<EndpointGroup, AdaptiveLimit> limits = new EnumMap<>(EndpointGroup.class);
+
+    private final Map<EndpointGroup, Counter> shed = new EnumMap<>(EndpointGroup.class);
+
+    @PostConstruct
+    public void init() {
+        for (EndpointGroup group : EndpointGroup.values()) {
+            AdaptiveLimit limit = new AdaptiveLimit(initialLimit, minLimit, maxLimit, smoothing,
+                    TimeUnit.MILLISECONDS.toNanos(windowMs), minWindowSamples);
+            limits.put(group, limit);
+
+            String tag = group.name().toLowerCase();
+            Gauge.builder("http.concurrency.limit", limit, AdaptiveLimit::getLimit)
+                    .description("当前并发上限")
+                    .tag("group", tag)
+                    .register(meterRegistry);
+            Gauge.builder("http.concurrency.in_flight", limit, AdaptiveLimit::getInFlight)
+                    .description("处理中的请求数")
+                    .tag("group", tag)
+                    .register(meterRegistry);
+            shed.put(group, Counter.builder("http.concurrency.shed")
+                    .description("因超出并发上限被拒绝的请求数")
+                    .tag("group", tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        EndpointGroup group = enabled ? EndpointGroup.of(request) : null;
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        AdaptiveLimit limit = limits.get(group);
+        if (shouldShed(group) || !limit.tryAcquire()) {
+            shed.get(group).increment();
+            logger.warn("{} 请求超出并发上限（{}），已拒绝: {} {}", group, limit.getLimit(),
+                    request.getMethod(), request.getRequestURI());
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            filterChain.doFilter(request, response);
+            dropped = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            limit.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    /**
+     * 登录繁忙时先拒绝查询类请求
+     */
+    private boolean shouldShed(EndpointGroup group) {
+        return group == EndpointGroup.READS && limits.get(EndpointGroup.AUTH).utilization() >= readShedThreshold;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+            apiResponseWriter.write(ApiResponse.error("服务繁忙，请稍后重试", HttpStatus.SERVICE_UNAVAILABLE.value()),
+                    generator);
+        }
+    }
+
+    /**
+     * 指定分组的并发上限（用于监控和测试）
+     */
+    public AdaptiveLimit getLimit(EndpointGroup group) {
+        return limits.get(group);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.loginsystem.limiter;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * 并发限制的接口分组
+ * 各组独立测量延迟、独立调整并发上限
+ */
+public enum EndpointGroup {
+
+    /** 登录 */
+    AUTH,
+
+    /** 注册（BCrypt 加密和写入，延迟特征与登录不同，单独限制，不参与登录繁忙的判断） */
+    REGISTER,
+
+    /** 查询类接口（列表、搜索、详情、批量查询、用户名检查） */
+    READS,
+
+    /** 管理员写操作（修改、删除） */
+    ADMIN_WRITES;
+
+    private static final String USERS_PATH = "/api/users";
+
+    /**
+     * 请求所属分组
+     * @return 分组；不受并发限制的请求（健康检查、事件流、静态资源等）返回 null
+     */
+    public static EndpointGroup of(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith(USERS_PATH)) {
+            // 健康检查等不经过限流，过载时也能及时响应
+            return null;
+        }
+        if (path.equals(USERS_PATH + "/login")) {
+            return AUTH;
+        }
+        if (path.equals(USERS_PATH + "/register")) {
+            return REGISTER;
+        }
+        if (path.equals(USERS_PATH + "/events")) {
+            // 长连接，不占用并发名额
+            return null;
+        }
+        if (path.equals(USERS_PATH + "/lookup")) {
+            // POST 只是携带较长的查询参数
+            return READS;
+        }
+        return switch (request.getMethod()) {
+            case "GET", "HEAD", "OPTIONS" -> READS;
+            default -> ADMIN_WRITES;
+        };
+    }
+}
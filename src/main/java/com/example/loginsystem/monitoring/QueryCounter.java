@@ -0,0 +1,71 @@
+package com.example.loginsystem.monitoring;
+
+/**
+ * 当前线程的SQL执行统计
+ * 统计范围可以嵌套（如测试中包住一次HTTP请求），每条语句会计入所有已打开的范围。
+ * 只统计在打开范围的线程上执行的语句，分片模式下并行查询其他分片的语句不计入。
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    /**
+     * 打开新的统计范围，使用完毕后必须关闭
+     */
+    public static Scope open() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * 记录一次语句执行
+     * @param elapsedMillis 执行耗时（毫秒）
+     */
+    static void record(long elapsedMillis) {
+        for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.count++;
+            scope.elapsedMillis += elapsedMillis;
+        }
+    }
+
+    /**
+     * 一个统计范围
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private int count;
+        private long elapsedMillis;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        /**
+         * 范围内执行的语句数（批量执行计为一次）
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * 范围内语句的总耗时（毫秒）
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public void close() {
+            if (parent == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(parent);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.loginsystem.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL执行监听器
+ * 记录每条语句的耗时（按语句类型），计入当前线程的 {@link QueryCounter}，
+ * 超过阈值的慢语句只记录SQL和参数类型，不记录参数值，避免密码哈希等敏感数据进入日志。
+ */
+@Component
+public class QueryMetricsListener implements QueryExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryMetricsListener.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.jdbc.slow-query-threshold-ms:200}")
+    private long slowQueryThresholdMs;
+
+    private final Map<QueryType, Timer> timers = new EnumMap<>(QueryType.class);
+
+    private Counter slowQueries;
+
+    @PostConstruct
+    public void init() {
+        for (QueryType type : QueryType.values()) {
+            timers.put(type, Timer.builder("jdbc.statements")
+                    .description("SQL语句执行耗时")
+                    .tag("type", type.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        slowQueries = Counter.builder("jdbc.statements.slow")
+                .description("超过阈值的慢SQL数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestTrace.begin(RequestTrace.Phase.DB);
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestTrace.end(RequestTrace.Phase.DB);
+        long elapsed = execInfo.getElapsedTime();
+        QueryCounter.record(elapsed);
+
+        QueryType type = queryInfoList.isEmpty()
+                ? QueryType.OTHER
+                : QueryUtils.getQueryType(queryInfoList.get(0).getQuery());
+        timers.get(type).record(elapsed, TimeUnit.MILLISECONDS);
+
+        if (elapsed >= slowQueryThresholdMs) {
+            slowQueries.increment();
+            for (QueryInfo queryInfo : queryInfoList) {
+                logger.warn("慢SQL（{}ms{}）: {} 参数类型: {}", elapsed,
+                        execInfo.isBatch() ? "，批量 " + execInfo.getBatchSize() + " 条" : "",
+                        queryInfo.getQuery(), parameterShape(queryInfo));
+            }
+        }
+    }
+
+    /**
+     * 参数形态，如 [String, Long]；批量语句只取第一组
+     */
+    private String parameterShape(QueryInfo queryInfo) {
+        if (queryInfo.getParametersList().isEmpty()) {
+            return "[]";
+        }
+        StringJoiner shape = new StringJoiner(", ", "[", "]");
+        for (ParameterSetOperation operation : queryInfo.getParametersList().get(0)) {
+            // setString / setLong / setNull ... 去掉 set 前缀即为参数类型
+            shape.add(operation.getMethod().getName().substring(3));
+        }
+        return shape.toString();
+    }
+}
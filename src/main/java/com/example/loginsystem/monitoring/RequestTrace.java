@@ -0,0 +1,195 @@
+package com.example.loginsystem.monitoring;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 当前线程的请求追踪
+ * 记录一次请求在各阶段（安全过滤器链、BCrypt、SQL、响应序列化）的累计耗时和次数。
+ * 只有被采样或带调试标记的请求才会打开追踪；未打开时各记录方法只读取一次 ThreadLocal，没有其他开销。
+ * 和 {@link QueryCounter} 一样只统计本线程，分片并行查询其他分片的语句不计入。
+ */
+public final class RequestTrace {
+
+    /**
+     * 追踪的阶段
+     */
+    public enum Phase {
+        SECURITY, BCRYPT, DB, SERIALIZE;
+
+        private final String key = name().toLowerCase(Locale.ROOT);
+
+        /**
+         * 在 Server-Timing 和导出数据中使用的名称
+         */
+        public String key() {
+            return key;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final String traceId;
+    private final String spanId;
+    private final String method;
+    private final Instant startedAt;
+    private final long startNanos;
+
+    private final long[] durations = new long[PHASES.length];
+    private final int[] counts = new int[PHASES.length];
+    private final long[] openedAt = new long[PHASES.length];
+
+    // 进入处理器（Controller）的时间，为0表示请求在过滤器中就已结束
+    private long handlerNanos;
+    private long durationNanos;
+    private String route;
+    private int status;
+
+    private RequestTrace(String method) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        this.traceId = hex(random.nextLong()) + hex(random.nextLong());
+        this.spanId = hex(random.nextLong());
+        this.method = method;
+        this.startedAt = Instant.now();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * 在当前线程打开追踪，使用完毕后必须调用 {@link #finish}
+     */
+    static RequestTrace start(String method) {
+        RequestTrace trace = new RequestTrace(method);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * 结束追踪并从当前线程移除
+     * @param route 接口路径模板
+     * @param status 响应状态码
+     */
+    void finish(String route, int status) {
+        long now = System.nanoTime();
+        this.durationNanos = now - startNanos;
+        this.route = route;
+        this.status = status;
+        // 安全过滤器链：从请求进入到处理器开始（被拒绝的请求为整个请求）
+        durations[Phase.SECURITY.ordinal()] = (handlerNanos != 0 ? handlerNanos : now) - startNanos;
+        counts[Phase.SECURITY.ordinal()] = 1;
+        CURRENT.remove();
+    }
+
+    /**
+     * 标记请求已通过过滤器链，进入处理器
+     */
+    static void enterHandler() {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null && trace.handlerNanos == 0) {
+            trace.handlerNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 开始一个阶段，必须与 {@link #end} 成对调用（同一阶段不嵌套）
+     */
+    public static void begin(Phase phase) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.openedAt[phase.ordinal()] = System.nanoTime();
+        }
+    }
+
+    /**
+     * 结束一个阶段，耗时计入该阶段
+     */
+    public static void end(Phase phase) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null && trace.openedAt[phase.ordinal()] != 0) {
+            trace.durations[phase.ordinal()] += System.nanoTime() - trace.openedAt[phase.ordinal()];
+            trace.counts[phase.ordinal()]++;
+            trace.openedAt[phase.ordinal()] = 0;
+        }
+    }
+
+    /**
+     * 执行操作并把耗时计入指定阶段
+     */
+    public static <T> T time(Phase phase, Supplier<T> action) {
+        begin(phase);
+        try {
+            return action.get();
+        } finally {
+            end(phase);
+        }
+    }
+
+    /**
+     * Server-Timing 响应头的值，如 {@code security;dur=0.41, bcrypt;dur=72.30, db;dur=1.20;desc="2", total;dur=75.02}
+     * db 阶段的 desc 为语句数
+     */
+    public String serverTiming() {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (Phase phase : PHASES) {
+            if (counts[phase.ordinal()] == 0) {
+                continue;
+            }
+            String entry = phase.key() + ";dur=" + millis(durations[phase.ordinal()]);
+            if (phase == Phase.DB) {
+                entry += ";desc=\"" + counts[phase.ordinal()] + "\"";
+            }
+            joiner.add(entry);
+        }
+        joiner.add("total;dur=" + millis(durationNanos));
+        return joiner.toString();
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getDurationNanos(Phase phase) {
+        return durations[phase.ordinal()];
+    }
+
+    public int getCount(Phase phase) {
+        return counts[phase.ordinal()];
+    }
+
+    static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+    }
+
+    private static String hex(long value) {
+        String digits = Long.toHexString(value);
+        return "0".repeat(16 - digits.length()) + digits;
+    }
+}
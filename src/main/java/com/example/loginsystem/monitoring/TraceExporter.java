@@ -0,0 +1,294 @@
+package com.example.loginsystem.monitoring;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求追踪导出
+ * 采样的追踪先放入有界队列，由后台线程定时批量写出，请求线程不做任何IO；队列写满时丢弃并计数。
+ * 支持两种目标：本地文件（每行一个 JSON）或本地 OTLP 收集器（OTLP/HTTP JSON，POST /v1/traces），
+ * 每个请求导出为一个 SERVER span，各阶段耗时和次数作为 span 属性。
+ */
+@Component
+public class TraceExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TraceExporter.class);
+
+    /**
+     * 导出目标
+     */
+    enum Target {
+        NONE, FILE, OTLP
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.tracing.exporter:none}")
+    private String exporter;
+
+    @Value("${app.tracing.file:logs/traces.jsonl}")
+    private String file;
+
+    @Value("${app.tracing.otlp-endpoint:http://localhost:4318/v1/traces}")
+    private String otlpEndpoint;
+
+    @Value("${app.tracing.queue-size:10000}")
+    private int queueSize;
+
+    @Value("${app.tracing.batch-size:512}")
+    private int batchSize;
+
+    @Value("${app.tracing.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${spring.application.name:login-system}")
+    private String serviceName;
+
+    private Target target;
+
+    private BlockingQueue<RequestTrace> queue;
+
+    private ScheduledExecutorService worker;
+
+    private HttpClient httpClient;
+
+    private Counter exported;
+
+    private Counter dropped;
+
+    @PostConstruct
+    public void start() {
+        target = Target.valueOf(exporter.trim().toUpperCase(Locale.ROOT));
+        exported = Counter.builder("tracing.spans.exported")
+                .description("已导出的请求追踪数")
+                .register(meterRegistry);
+        dropped = Counter.builder("tracing.spans.dropped")
+                .description("导出队列已满或导出失败而丢弃的请求追踪数")
+                .register(meterRegistry);
+        if (target == Target.NONE) {
+            return;
+        }
+
+        queue = new ArrayBlockingQueue<>(queueSize);
+        if (target == Target.OTLP) {
+            httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        }
+        worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "trace-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::drain, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("请求追踪导出已启用，目标: {}", target == Target.FILE ? file : otlpEndpoint);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (worker == null) {
+            return;
+        }
+        worker.shutdown();
+        try {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+
+    /**
+     * 是否配置了导出目标（未配置时不做采样）
+     */
+    public boolean isEnabled() {
+        return target != Target.NONE;
+    }
+
+    /**
+     * 提交一个已结束的追踪，不阻塞
+     */
+    public void export(RequestTrace trace) {
+        if (queue != null && !queue.offer(trace)) {
+            dropped.increment();
+        }
+    }
+
+    private void drain() {
+        List<RequestTrace> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                if (target == Target.FILE) {
+                    writeFile(batch);
+                } else {
+                    postOtlp(batch);
+                }
+                exported.increment(batch.size());
+            } catch (IOException | RuntimeException e) {
+                dropped.increment(batch.size());
+                logger.warn("请求追踪导出失败，丢弃 {} 条: {}", batch.size(), e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeFile(List<RequestTrace> batch) throws IOException {
+        Path path = Path.of(file);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (OutputStream out = Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writeJsonLines(batch, out);
+        }
+    }
+
+    /**
+     * 每个追踪一行：{"traceId":..,"start":..,"method":..,"route":..,"status":..,"durationMs":..,
+     * "phases":{"bcrypt":{"ms":..,"count":..},..}}
+     */
+    void writeJsonLines(List<RequestTrace> batch, OutputStream out) throws IOException {
+        for (RequestTrace trace : batch) {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+                generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+                generator.writeStartObject();
+                generator.writeStringField("traceId", trace.getTraceId());
+                generator.writeStringField("start", trace.getStartedAt().toString());
+                generator.writeStringField("method", trace.getMethod());
+                generator.writeStringField("route", trace.getRoute());
+                generator.writeNumberField("status", trace.getStatus());
+                generator.writeNumberField("durationMs", trace.getDurationNanos() / 1_000_000.0);
+                generator.writeObjectFieldStart("phases");
+                for (RequestTrace.Phase phase : RequestTrace.Phase.values()) {
+                    if (trace.getCount(phase) == 0) {
+                        continue;
+                    }
+                    generator.writeObjectFieldStart(phase.key());
+                    generator.writeNumberField("ms", trace.getDurationNanos(phase) / 1_000_000.0);
+                    generator.writeNumberField("count", trace.getCount(phase));
+                    generator.writeEndObject();
+                }
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+            out.write('\n');
+        }
+    }
+
+    private void postOtlp(List<RequestTrace> batch) throws IOException, InterruptedException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writeOtlp(batch, body);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(otlpEndpoint))
+                .timeout(Duration.ofSeconds(5))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 300) {
+            throw new IOException("OTLP 收集器返回 " + response.statusCode());
+        }
+    }
+
+    /**
+     * OTLP/HTTP JSON 格式（ExportTraceServiceRequest）
+     */
+    void writeOtlp(List<RequestTrace> batch, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("resourceSpans");
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("resource");
+            generator.writeArrayFieldStart("attributes");
+            writeAttribute(generator, "service.name", serviceName);
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeArrayFieldStart("scopeSpans");
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("scope");
+            generator.writeStringField("name", "com.example.loginsystem");
+            generator.writeEndObject();
+            generator.writeArrayFieldStart("spans");
+            for (RequestTrace trace : batch) {
+                long start = trace.getStartedAt().getEpochSecond() * 1_000_000_000L + trace.getStartedAt().getNano();
+                generator.writeStartObject();
+                generator.writeStringField("traceId", trace.getTraceId());
+                generator.writeStringField("spanId", trace.getSpanId());
+                generator.writeStringField("name", trace.getMethod() + " " + trace.getRoute());
+                // SPAN_KIND_SERVER
+                generator.writeNumberField("kind", 2);
+                generator.writeStringField("startTimeUnixNano", Long.toString(start));
+                generator.writeStringField("endTimeUnixNano", Long.toString(start + trace.getDurationNanos()));
+                generator.writeArrayFieldStart("attributes");
+                writeAttribute(generator, "http.request.method", trace.getMethod());
+                writeAttribute(generator, "http.route", trace.getRoute());
+                writeAttribute(generator, "http.response.status_code", trace.getStatus());
+                for (RequestTrace.Phase phase : RequestTrace.Phase.values()) {
+                    if (trace.getCount(phase) == 0) {
+                        continue;
+                    }
+                    writeAttribute(generator, "app.phase." + phase.key() + ".duration_ms",
+                            trace.getDurationNanos(phase) / 1_000_000.0);
+                    writeAttribute(generator, "app.phase." + phase.key() + ".count", trace.getCount(phase));
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeAttribute(JsonGenerator generator, String key, Object value) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("key", key);
+        generator.writeObjectFieldStart("value");
+        if (value instanceof Integer number) {
+            // OTLP JSON 中 int64 以字符串表示
+            generator.writeStringField("intValue", number.toString());
+        } else if (value instanceof Double number) {
+            generator.writeNumberField("doubleValue", number);
+        } else {
+            generator.writeStringField("stringValue", String.valueOf(value));
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.loginsystem.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 标记请求通过过滤器链、进入处理器的时间，作为追踪中 security 阶段的结束点
+ */
+public class TraceHandlerInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestTrace.enterHandler();
+        return true;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.loginsystem.monitoring;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * 把密码加密和校验的耗时计入请求追踪的 bcrypt 阶段
+ */
+public class TracedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    public TracedPasswordEncoder(PasswordEncoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return RequestTrace.time(RequestTrace.Phase.BCRYPT, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return RequestTrace.time(RequestTrace.Phase.BCRYPT, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.loginsystem.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 请求追踪过滤器
+ * 按 sample-rate 采样请求并交给 {@link TraceExporter} 导出；请求头 X-Debug-Timing 与配置的调试令牌一致时
+ * （管理员调试用，未配置令牌则不可用），总是追踪并在响应中返回 Server-Timing 头。
+ * 调试请求的响应体先缓存在内存中，序列化完成后才能写出包含序列化耗时的响应头；
+ * 事件流（Accept: text/event-stream）不缓存也没有该响应头，否则推送的事件会一直留在缓存里。
+ * 未声明 Accept 却转为异步处理的调试请求，缓存的响应体在异步处理结束时写出。
+ * 放在安全过滤器之前，认证和授权的耗时计入 security 阶段。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class TracingFilter extends OncePerRequestFilter {
+
+    public static final String DEBUG_HEADER = "X-Debug-Timing";
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    @Autowired
+    private TraceExporter traceExporter;
+
+    @Value("${app.tracing.sample-rate:0.01}")
+    private double sampleRate;
+
+    @Value("${app.tracing.debug-token:}")
+    private String debugToken;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            filterChain.doFilter(request, response);
+            ContentCachingResponseWrapper buffered =
+                    WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+            if (buffered != null) {
+                buffered.copyBodyToResponse();
+            }
+            return;
+        }
+
+        boolean debug = isDebug(request);
+        boolean sampled = traceExporter.isEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        if (!debug && !sampled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RequestTrace trace = RequestTrace.start(request.getMethod());
+        ContentCachingResponseWrapper buffered =
+                debug && !isEventStream(request) ? new ContentCachingResponseWrapper(response) : null;
+        try {
+            filterChain.doFilter(request, buffered != null ? buffered : response);
+        } finally {
+            // 使用路径模板（如 /api/users/{id}）而不是实际路径
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            trace.finish(pattern != null ? pattern.toString() : "UNKNOWN", response.getStatus());
+            if (buffered != null && !request.isAsyncStarted()) {
+                buffered.setHeader(SERVER_TIMING_HEADER, trace.serverTiming());
+                buffered.copyBodyToResponse();
+            }
+            if (sampled) {
+                traceExporter.export(trace);
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // 异步处理结束时写出缓存的响应体
+        return false;
+    }
+
+    private static boolean isEventStream(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    private boolean isDebug(HttpServletRequest request) {
+        String token = request.getHeader(DEBUG_HEADER);
+        if (token == null || debugToken.isEmpty()) {
+            return false;
+        }
+        return MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), debugToken.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.loginsystem.repository;
+
+import com.example.loginsystem.entity.UserChangeLog;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 用户变更日志数据访问接口
+ */
+@Repository
+public interface UserChangeLogRepository extends JpaRepository<UserChangeLog, Long> {
+
+    /**
+     * 按序号增量拉取变更日志
+     * @param seq 起始序号（不含）
+     * @param pageable 分页参数，用于限制批量大小
+     * @return 变更日志列表
+     */
+    List<UserChangeLog> findBySeqGreaterThanOrderBySeqAsc(Long seq, Pageable pageable);
+
+    /**
+     * 查询当前最大序号
+     * @return 最大序号，无记录时返回0
+     */
+    @Query("SELECT COALESCE(MAX(c.seq), 0) FROM UserChangeLog c")
+    long findMaxSeq();
+
+    /**
+     * 删除指定时间之前的变更日志
+     * @param before 截止时间
+     * @return 删除的记录数
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UserChangeLog c WHERE c.createdAt < :before")
+    int deleteByCreatedAtBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,76 @@
+package com.example.loginsystem.repository;
+
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * 列表接口可选择返回的用户字段（fields 参数）
+ * 密码不在其中，任何情况下都不会被查询
+ */
+public enum UserField {
+
+    ID("id", (user, value) -> user.setId((Long) value)),
+    USERNAME("username", (user, value) -> user.setUsername((String) value)),
+    ROLE("role", (user, value) -> user.setRole((UserRole) value)),
+    CREATED_AT("createdAt", (user, value) -> user.setCreatedAt((LocalDateTime) value)),
+    UPDATED_AT("updatedAt", (user, value) -> user.setUpdatedAt((LocalDateTime) value)),
+    LAST_LOGIN_AT("lastLoginAt", (user, value) -> user.setLastLoginAt((LocalDateTime) value)),
+    LOGIN_COUNT("loginCount", (user, value) -> user.setLoginCount((Long) value));
+
+    private final String attribute;
+    private final BiConsumer<User, Object> setter;
+
+    UserField(String attribute, BiConsumer<User, Object> setter) {
+        this.attribute = attribute;
+        this.setter = setter;
+    }
+
+    /**
+     * 解析逗号分隔的字段列表，如 "id,username"
+     * @param fields 字段列表，名称与JSON属性名一致
+     * @return 选中的字段
+     * @throws IllegalArgumentException 字段列表为空或包含未知字段时抛出异常
+     */
+    public static Set<UserField> parse(String fields) {
+        Set<UserField> selected = EnumSet.noneOf(UserField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            selected.add(of(trimmed));
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("fields 不能为空");
+        }
+        return selected;
+    }
+
+    private static UserField of(String attribute) {
+        for (UserField field : values()) {
+            if (field.attribute.equals(attribute)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("未知字段: " + attribute);
+    }
+
+    /**
+     * 实体属性名（同时也是JSON属性名）
+     */
+    public String getAttribute() {
+        return attribute;
+    }
+
+    /**
+     * 把查询到的值写入用户对象
+     */
+    public void set(User user, Object value) {
+        setter.accept(user, value);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.loginsystem.repository;
+
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 按字段投影的用户列表查询
+ * 只查询选中的列，返回的 User 只填充这些字段，其余为null（序列化时省略）；
+ * id 和 createdAt 始终查询，用于排序和分片结果合并。结果按 createdAt 降序排列。
+ */
+public interface UserProjectionRepository {
+
+    /**
+     * 查询所有用户
+     * @param fields 选中的字段
+     * @return 部分填充的用户列表
+     */
+    List<User> findAllProjected(Set<UserField> fields);
+
+    /**
+     * 根据角色查询用户
+     * @param role 用户角色
+     * @param fields 选中的字段
+     * @return 部分填充的用户列表
+     */
+    List<User> findByRoleProjected(UserRole role, Set<UserField> fields);
+
+    /**
+     * 根据用户名模糊查询
+     * @param username 用户名关键词
+     * @param fields 选中的字段
+     * @return 部分填充的用户列表
+     */
+    List<User> findByUsernameContainingProjected(String username, Set<UserField> fields);
+}
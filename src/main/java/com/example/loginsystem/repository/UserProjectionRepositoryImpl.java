@@ -0,0 +1,98 @@
+package com.example.loginsystem.repository;
+
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * UserProjectionRepository 的实现（Spring Data 自定义片段）
+ * 以 Criteria 的 Tuple 查询只读取选中的列，结果不受持久化上下文管理
+ */
+public class UserProjectionRepositoryImpl implements UserProjectionRepository {
+
+    // LIKE 的转义字符；不用反斜杠，MySQL 字符串字面量中反斜杠本身也需要转义
+    private static final char LIKE_ESCAPE = '!';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<User> findAllProjected(Set<UserField> fields) {
+        return query(fields, (cb, root) -> null);
+    }
+
+    @Override
+    public List<User> findByRoleProjected(UserRole role, Set<UserField> fields) {
+        return query(fields, (cb, root) -> cb.equal(root.get("role"), role));
+    }
+
+    @Override
+    public List<User> findByUsernameContainingProjected(String username, Set<UserField> fields) {
+        String pattern = "%" + escapeLike(username) + "%";
+        return query(fields, (cb, root) -> cb.like(root.get("username"), pattern, LIKE_ESCAPE));
+    }
+
+    /**
+     * 转义关键词中的 LIKE 通配符，% 和 _ 按字面匹配
+     */
+    private static String escapeLike(String keyword) {
+        StringBuilder escaped = new StringBuilder(keyword.length() + 4);
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private List<User> query(Set<UserField> fields,
+                             BiFunction<CriteriaBuilder, Root<User>, Predicate> where) {
+        EnumSet<UserField> columns = EnumSet.of(UserField.ID, UserField.CREATED_AT);
+        columns.addAll(fields);
+        UserField[] selected = columns.toArray(new UserField[0]);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> root = query.from(User.class);
+        List<Selection<?>> selections = new ArrayList<>(selected.length);
+        for (UserField field : selected) {
+            selections.add(root.get(field.getAttribute()));
+        }
+        query.multiselect(selections);
+        Predicate predicate = where.apply(cb, root);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        // 与 findAllByOrderByCreatedAtDesc 的索引顺序一致
+        query.orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("id")));
+
+        List<Tuple> tuples = entityManager.createQuery(query).getResultList();
+        List<User> users = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            User user = new User();
+            // 构造函数会填充时间戳，部分对象中未选中的字段必须为null
+            user.setCreatedAt(null);
+            user.setUpdatedAt(null);
+            for (int i = 0; i < selected.length; i++) {
+                selected[i].set(user, tuple.get(i));
+            }
+            users.add(user);
+        }
+        return users;
+    }
+}
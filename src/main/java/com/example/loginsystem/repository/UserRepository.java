@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,7 +15,7 @@ import java.util.Optional;
  * 用户数据访问接口
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserProjectionRepository {
 
     /**
      * 根据用户名查找用户
@@ -23,6 +24,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByUsername(String username);
 
+    /**
+     * 根据用户名批量查找用户
+     * @param usernames 用户名集合
+     * @return 找到的用户，顺序不保证
+     */
+    List<User> findByUsernameIn(Collection<String> usernames);
+
     /**
      * 检查用户名是否存在
      * @param username 用户名
@@ -45,11 +53,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
     long countByRole(UserRole role);
 
     /**
-     * 根据用户名模糊查询
+     * 根据用户名模糊查询，关键词中的 % 和 _ 按字面匹配
      * @param username 用户名关键词
      * @return 用户列表
      */
-    @Query("SELECT u FROM User u WHERE u.username LIKE %:username%")
+    @Query("SELECT u FROM User u WHERE u.username LIKE %:#{escape(#username)}% ESCAPE :#{escapeCharacter()}")
     List<User> findByUsernameContaining(@Param("username") String username);
 
     /**
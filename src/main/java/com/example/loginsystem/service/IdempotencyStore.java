@@ -0,0 +1,255 @@
+package com.example.loginsystem.service;
+
+import com.example.loginsystem.dto.ApiResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 幂等键存储（Idempotency-Key）
+ * 同一幂等键的重试：首次请求仍在执行时等待同一个结果，执行完成后直接重放保存的响应，
+ * 不再重复密码加密和数据库写入。
+ * 完成的结果保留 ttl 时长；条目数达到上限且无过期条目可清理时，新请求不再记录幂等键而是直接执行。
+ * 5xx 结果不保存，重试会重新执行。
+ * 已登录用户的幂等键按操作和用户名隔离，同一幂等键携带不同内容时返回 422。
+ * 匿名请求（如注册）无法区分客户端，幂等键与请求内容指纹一起作为键：内容相同才重放，
+ * 内容不同视为另一个请求正常执行，不返回 422，避免他人借已知幂等键比对请求内容。
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${app.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void start() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "idempotency-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * 按幂等键执行操作
+     * @param key 请求头中的幂等键，为null时直接执行
+     * @param operation 操作名
+     * @param fingerprint 请求内容指纹，已登录用户同一幂等键携带不同内容时返回 422
+     * @param action 实际操作
+     * @return 操作结果，或重放的已保存结果
+     */
+    public <D> ResponseEntity<ApiResponse<D>> execute(String key, String operation, String fingerprint,
+                                                      Supplier<ResponseEntity<ApiResponse<D>>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(HEADER + " 无效"));
+        }
+
+        String principal = principal();
+        String scopedKey = principal == null
+                ? operation + "::" + key + ':' + fingerprint
+                : operation + ':' + principal + ':' + key;
+        Entry mine = new Entry(fingerprint);
+        Entry existing = putIfAbsent(scopedKey, mine);
+        if (existing == null) {
+            return lead(scopedKey, mine, action);
+        }
+        if (existing == mine) {
+            // 存储已满，不记录幂等键
+            count("bypassed");
+            return action.get();
+        }
+        if (!existing.fingerprint.equals(fingerprint)) {
+            count("mismatch");
+            logger.warn("幂等键 {} 已用于内容不同的 {} 请求", key, operation);
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(ApiResponse.error(HEADER + " 已用于内容不同的请求", HttpStatus.UNPROCESSABLE_ENTITY.value()));
+        }
+        return replay(existing);
+    }
+
+    /**
+     * 请求内容指纹（SHA-256），密码等敏感字段只以摘要形式保存
+     */
+    public static String fingerprint(Object... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 当前保存的条目数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private Entry putIfAbsent(String scopedKey, Entry mine) {
+        while (true) {
+            Entry existing = entries.get(scopedKey);
+            if (existing != null && existing.isExpired(System.nanoTime())) {
+                entries.remove(scopedKey, existing);
+                continue;
+            }
+            if (existing != null) {
+                return existing;
+            }
+            if (entries.size() >= maxEntries) {
+                sweep();
+                if (entries.size() >= maxEntries) {
+                    return mine;
+                }
+            }
+            existing = entries.putIfAbsent(scopedKey, mine);
+            if (existing == null || !existing.isExpired(System.nanoTime())) {
+                return existing;
+            }
+        }
+    }
+
+    private <D> ResponseEntity<ApiResponse<D>> lead(String scopedKey, Entry entry,
+                                                    Supplier<ResponseEntity<ApiResponse<D>>> action) {
+        count("executed");
+        ResponseEntity<ApiResponse<D>> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException | Error e) {
+            entries.remove(scopedKey, entry);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+        if (result.getStatusCode().is5xxServerError()) {
+            entries.remove(scopedKey, entry);
+        } else {
+            entry.expiresAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds);
+        }
+        entry.future.complete(result);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <D> ResponseEntity<ApiResponse<D>> replay(Entry entry) {
+        boolean completed = entry.future.isDone();
+        count(completed ? "replayed" : "joined");
+        ResponseEntity<?> stored;
+        try {
+            stored = entry.future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("相同请求正在处理中，请稍后重试", HttpStatus.CONFLICT.value()));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("幂等请求执行失败：" + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待幂等请求结果时被中断");
+        }
+        return ResponseEntity.status(stored.getStatusCode())
+                .headers(stored.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body((ApiResponse<D>) stored.getBody());
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    /**
+     * 当前登录用户名，匿名请求返回null
+     */
+    private String principal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("users.idempotency", "outcome", outcome).increment();
+    }
+
+    /**
+     * 一个幂等键对应的执行结果
+     */
+    private static class Entry {
+
+        private final String fingerprint;
+        private final CompletableFuture<ResponseEntity<?>> future = new CompletableFuture<>();
+
+        // 完成前为0，表示未过期
+        private volatile long expiresAt;
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        boolean isExpired(long now) {
+            long expiry = expiresAt;
+            return expiry != 0 && now - expiry > 0;
+        }
+    }
+}
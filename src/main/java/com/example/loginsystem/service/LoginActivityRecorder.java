@@ -0,0 +1,293 @@
+package com.example.loginsystem.service;
+
+import com.example.loginsystem.event.LoginActivityFlushedEvent;
+import com.example.loginsystem.sharding.ShardContext;
+import com.example.loginsystem.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 登录活动记录器（write-behind）
+ * 登录成功时只在内存中按用户ID合并事件，由后台线程按数量或时间触发，
+ * 以一次JDBC批量更新回写 last_login_at 和 login_count。
+ * 缓冲的用户数不超过 max-pending：缓冲区已满时新用户的登录事件被丢弃并计数，已缓冲用户的事件仍然合并；
+ * 登录线程从不同步回写。回写失败时事件放回缓冲区（同样受上限约束），之后按指数退避重试，
+ * 退避期间数量触发和定时触发的回写都不执行。
+ */
+@Component
+public class LoginActivityRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginActivityRecorder.class);
+
+    private static final String FLUSH_SQL =
+            "UPDATE users SET login_count = COALESCE(login_count, 0) + ?, last_login_at = ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 开启分片时按用户ID所在分片分别回写
+    @Autowired
+    private ObjectProvider<ShardRouter> shardRouter;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.login-tracking.flush-size:500}")
+    private int flushSize;
+
+    @Value("${app.login-tracking.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${app.login-tracking.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${app.login-tracking.max-backoff-ms:30000}")
+    private long maxBackoffMs;
+
+    // 按用户ID合并的待回写事件
+    private final ConcurrentHashMap<Long, PendingLogin> pending = new ConcurrentHashMap<>();
+
+    // 尚未回写的登录事件数（合并前计数）
+    private final AtomicInteger pendingEvents = new AtomicInteger();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final Object flushLock = new Object();
+
+    // 连续回写失败次数，决定退避时长；由 flushLock 保护
+    private int consecutiveFailures;
+
+    // 退避结束时间（System.nanoTime），之前不执行数量触发和定时触发的回写
+    private volatile long retryAtNanos = System.nanoTime();
+
+    private ScheduledExecutorService flusher;
+
+    private Timer flushTimer;
+
+    private DistributionSummary batchSize;
+
+    private Counter dropped;
+
+    @PostConstruct
+    public void start() {
+        flushTimer = Timer.builder("users.login.flush")
+                .description("登录活动批量回写耗时")
+                .register(meterRegistry);
+        batchSize = DistributionSummary.builder("users.login.flush.batch")
+                .description("每次回写的用户数")
+                .register(meterRegistry);
+        Gauge.builder("users.login.pending", pendingEvents, AtomicInteger::get)
+                .description("尚未回写的登录事件数")
+                .register(meterRegistry);
+        dropped = Counter.builder("users.login.dropped")
+                .description("缓冲区已满而丢弃的登录事件数")
+                .register(meterRegistry);
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "login-activity-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            if (!backingOff()) {
+                flushQuietly();
+            }
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录一次成功登录
+     * @param userId 用户ID
+     * @param loginAt 登录时间
+     */
+    public void record(Long userId, LocalDateTime loginAt) {
+        // 上限是近似的：并发登录的新用户可能同时通过检查
+        if (pending.size() >= maxPending && !pending.containsKey(userId)) {
+            dropped.increment();
+            requestFlush();
+            return;
+        }
+        pending.merge(userId, new PendingLogin(1, loginAt), PendingLogin::merge);
+        if (pendingEvents.incrementAndGet() >= flushSize) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * 将缓冲区中的事件批量写回数据库
+     * @return 本次写回的用户数
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            flushRequested.set(false);
+            if (pending.isEmpty()) {
+                return 0;
+            }
+
+            List<Long> ids = new ArrayList<>(pending.size());
+            List<Object[]> batch = new ArrayList<>(pending.size());
+            List<PendingLogin> drained = new ArrayList<>(pending.size());
+            int events = 0;
+            for (Long id : pending.keySet()) {
+                PendingLogin login = pending.remove(id);
+                if (login == null) {
+                    continue;
+                }
+                ids.add(id);
+                drained.add(login);
+                events += login.count();
+                batch.add(new Object[]{login.count(), Timestamp.valueOf(login.lastLoginAt()), id});
+            }
+
+            long start = System.nanoTime();
+            try {
+                writeBatch(batch);
+                pendingEvents.addAndGet(-events);
+                consecutiveFailures = 0;
+                retryAtNanos = System.nanoTime();
+                batchSize.record(batch.size());
+                logger.debug("登录活动回写完成，用户数: {}，事件数: {}", batch.size(), events);
+                publishFlushed(ids, drained, start, System.nanoTime());
+                return batch.size();
+            } catch (DataAccessException e) {
+                // 回写失败时放回缓冲区（不超过上限），退避后重试
+                int lost = 0;
+                for (int i = 0; i < ids.size(); i++) {
+                    Long id = ids.get(i);
+                    if (pending.size() >= maxPending && !pending.containsKey(id)) {
+                        lost += drained.get(i).count();
+                        continue;
+                    }
+                    pending.merge(id, drained.get(i), PendingLogin::merge);
+                }
+                if (lost > 0) {
+                    pendingEvents.addAndGet(-lost);
+                    dropped.increment(lost);
+                }
+                long backoffMs = backoffMs(++consecutiveFailures);
+                retryAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs);
+                logger.error("登录活动回写失败（连续 {} 次），{} 个事件将在 {} ms 后重试，丢弃 {} 个",
+                        consecutiveFailures, events - lost, backoffMs, lost, e);
+                return 0;
+            } finally {
+                flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * 当前未回写的登录事件数
+     */
+    public int getPendingEvents() {
+        return pendingEvents.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int flushed = flush();
+        logger.info("应用关闭前回写登录活动，用户数: {}", flushed);
+    }
+
+    private void publishFlushed(List<Long> ids, List<PendingLogin> drained, long startedNanos, long committedNanos) {
+        List<LoginActivityFlushedEvent.Login> logins = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            logins.add(new LoginActivityFlushedEvent.Login(ids.get(i), drained.get(i).count(),
+                    drained.get(i).lastLoginAt()));
+        }
+        try {
+            eventPublisher.publishEvent(new LoginActivityFlushedEvent(logins, startedNanos, committedNanos));
+        } catch (RuntimeException e) {
+            // 应用关闭时的最后一次回写，上下文可能已不再接受事件
+            logger.debug("登录活动回写事件发布失败: {}", e.getMessage());
+        }
+    }
+
+    private void writeBatch(List<Object[]> batch) {
+        ShardRouter router = shardRouter.getIfAvailable();
+        if (router == null) {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+            return;
+        }
+
+        Map<Integer, List<Object[]>> batchByShard = new HashMap<>();
+        for (Object[] row : batch) {
+            int shard = router.shardOfId((Long) row[2]);
+            if (shard >= 0) {
+                batchByShard.computeIfAbsent(shard, k -> new ArrayList<>()).add(row);
+            }
+        }
+        batchByShard.forEach((shard, rows) ->
+                ShardContext.call(shard, () -> jdbcTemplate.batchUpdate(FLUSH_SQL, rows)));
+    }
+
+    private void requestFlush() {
+        if (!backingOff() && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    private boolean backingOff() {
+        return System.nanoTime() - retryAtNanos < 0;
+    }
+
+    private long backoffMs(int failures) {
+        // 从回写间隔开始每次翻倍，不超过 max-backoff-ms
+        long backoff = flushIntervalMs << Math.min(failures - 1, 20);
+        return Math.min(backoff, maxBackoffMs);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("登录活动定时回写发生异常: ", e);
+        }
+    }
+
+    /**
+     * 同一用户合并后的待回写登录事件
+     */
+    private record PendingLogin(int count, LocalDateTime lastLoginAt) {
+
+        PendingLogin merge(PendingLogin other) {
+            LocalDateTime latest = lastLoginAt.isAfter(other.lastLoginAt) ? lastLoginAt : other.lastLoginAt;
+            return new PendingLogin(count + other.count, latest);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.loginsystem.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 相同只读查询的合并执行（single-flight）
+ * 同一时刻对同一方法、同一参数的并发调用只有第一个（leader）真正访问数据库，
+ * 其余调用（follower）等待并共享它的结果，不占用连接池。
+ * follower 等待超时后自行查询；leader 失败时 follower 收到同样的异常，避免故障时再次涌向数据库。
+ * 当前线程已处于事务中时不合并，保证能读到本事务内未提交的修改。
+ */
+@Component
+public class RequestCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestCoalescer.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.lookup-coalescing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.lookup-coalescing.timeout-ms:2000}")
+    private long timeoutMs;
+
+    private final ConcurrentHashMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, OperationMeters> meters = new ConcurrentHashMap<>();
+
+    /**
+     * 执行查询，与正在进行的相同查询合并
+     * @param operation 操作名，与参数共同组成合并键
+     * @param argument 查询参数
+     * @param loader 实际查询
+     * @param copier 结果复制方法，每个调用方得到独立的对象；不可变结果传 UnaryOperator.identity()
+     * @return 查询结果
+     */
+    public <T> T execute(String operation, Object argument, Supplier<T> loader, UnaryOperator<T> copier) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loader.get();
+        }
+
+        Key key = new Key(operation, argument);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing == null) {
+            return lead(key, mine, loader, copier);
+        }
+        return follow(operation, existing, loader, copier);
+    }
+
+    private <T> T lead(Key key, CompletableFuture<Object> future, Supplier<T> loader, UnaryOperator<T> copier) {
+        meters(key.operation()).leaders.increment();
+        T result;
+        try {
+            result = loader.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        // 先移除再发布结果：之后到达的调用会发起新查询，不会拿到开始于它之前的旧结果
+        inFlight.remove(key, future);
+        future.complete(result == null ? null : copier.apply(result));
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T follow(String operation, CompletableFuture<Object> future, Supplier<T> loader, UnaryOperator<T> copier) {
+        OperationMeters operationMeters = meters(operation);
+        operationMeters.followers.increment();
+        try {
+            T result = (T) future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            return result == null ? null : copier.apply(result);
+        } catch (TimeoutException e) {
+            operationMeters.timeouts.increment();
+            logger.warn("等待合并查询 {} 超时（{}ms），改为单独查询", operation, timeoutMs);
+            return loader.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException("合并查询失败：" + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待合并查询结果时被中断");
+        }
+    }
+
+    private OperationMeters meters(String operation) {
+        return meters.computeIfAbsent(operation, OperationMeters::new);
+    }
+
+    /**
+     * 合并键：操作名 + 参数
+     */
+    private record Key(String operation, Object argument) {
+    }
+
+    /**
+     * 单个操作的合并指标
+     */
+    private class OperationMeters {
+
+        private final Counter leaders;
+        private final Counter followers;
+        private final Counter timeouts;
+
+        OperationMeters(String operation) {
+            leaders = Counter.builder("users.lookup.coalesce")
+                    .description("合并查询调用数，leader 实际访问数据库，follower 共享结果")
+                    .tag("operation", operation)
+                    .tag("role", "leader")
+                    .register(meterRegistry);
+            followers = Counter.builder("users.lookup.coalesce")
+                    .description("合并查询调用数，leader 实际访问数据库，follower 共享结果")
+                    .tag("operation", operation)
+                    .tag("role", "follower")
+                    .register(meterRegistry);
+            timeouts = Counter.builder("users.lookup.coalesce.timeouts")
+                    .description("follower 等待超时后单独查询的次数")
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+            Gauge.builder("users.lookup.coalesce.ratio", this, OperationMeters::ratio)
+                    .description("被合并（未访问数据库）的调用占比")
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+        }
+
+        double ratio() {
+            double total = leaders.count() + followers.count();
+            return total == 0 ? 0 : followers.count() / total;
+        }
+    }
+}
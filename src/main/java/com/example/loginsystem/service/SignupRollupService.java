@@ -0,0 +1,242 @@
+package com.example.loginsystem.service;
+
+import com.example.loginsystem.dto.SignupTimeseries;
+import com.example.loginsystem.dto.SignupTimeseries.Granularity;
+import com.example.loginsystem.entity.UserRole;
+import com.example.loginsystem.sharding.ShardContext;
+import com.example.loginsystem.sharding.ShardRouter;
+import com.example.loginsystem.sharding.ShardRoutingDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * 注册量预聚合
+ * user_signup_rollup 按小时、按天和角色保存用户数，注册和删除（以及修改角色）时在同一事务中增量更新，
+ * 时间序列查询只读取所需范围内的桶，不再扫描用户表。
+ * 预聚合上线前已有的用户由启动时的一次性回填统计：流式读取用户表，在内存中按桶累加后写入；
+ * rollup_backfill 中的标记行与回填在同一事务中写入，多个节点同时启动时只有一个执行。
+ * 分片模式下与用户表写在同一分片的同一事务中，每个分片各自回填，查询时汇总所有分片。
+ */
+@Component
+public class SignupRollupService implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignupRollupService.class);
+
+    static final String BACKFILL_NAME = "user-signups";
+
+    // 预聚合实际保存的粒度，MONTH 由 DAY 汇总
+    private static final Granularity[] STORED = {Granularity.HOUR, Granularity.DAY};
+
+    private static final String UPSERT_SQL = "INSERT INTO user_signup_rollup (granularity, bucket_start, role, user_count) "
+            + "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE user_count = user_count + ?";
+
+    private static final String RANGE_SQL = "SELECT bucket_start, role, user_count FROM user_signup_rollup "
+            + "WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ? AND user_count <> 0";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<ShardRouter> shardRouter;
+
+    @Autowired
+    private ObjectProvider<ShardRoutingDataSource> shardRoutingDataSource;
+
+    @Value("${app.signup-rollup.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    @Value("${app.signup-rollup.max-buckets:10000}")
+    private int maxBuckets;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (backfillOnStartup) {
+            backfill();
+        }
+    }
+
+    /**
+     * 在调用方事务中累加一个用户所在的各个桶
+     * @param createdAt 用户注册时间，为null时不计入
+     * @param role 用户角色
+     * @param delta 注册为1，删除为-1
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(LocalDateTime createdAt, UserRole role, int delta) {
+        if (createdAt == null) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(STORED.length);
+        for (Granularity granularity : STORED) {
+            rows.add(new Object[]{granularity.name(), Timestamp.valueOf(granularity.truncate(createdAt)),
+                    role.name(), delta, delta});
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+    }
+
+    /**
+     * 查询注册量时间序列
+     * @param granularity 时间粒度
+     * @param from 起始时间（含），按粒度向下取整
+     * @param to 结束时间（不含）
+     * @param role 只统计该角色，为null时统计全部
+     * @return 时间序列
+     * @throws IllegalArgumentException 范围无效或桶数超过上限时抛出异常
+     */
+    @Transactional(readOnly = true)
+    public SignupTimeseries query(Granularity granularity, LocalDateTime from, LocalDateTime to, UserRole role) {
+        LocalDateTime start = granularity.truncate(from);
+        if (!start.isBefore(to)) {
+            throw new IllegalArgumentException("起始时间必须早于结束时间");
+        }
+        ChronoUnit unit = switch (granularity) {
+            case HOUR -> ChronoUnit.HOURS;
+            case DAY -> ChronoUnit.DAYS;
+            case MONTH -> ChronoUnit.MONTHS;
+        };
+        if (unit.between(start, to) >= maxBuckets) {
+            throw new IllegalArgumentException("时间范围过大，" + granularity + " 粒度最多 " + maxBuckets + " 个桶");
+        }
+
+        Granularity stored = granularity == Granularity.MONTH ? Granularity.DAY : granularity;
+        String sql = RANGE_SQL + (role != null ? " AND role = ?" : "");
+        List<Object> params = new ArrayList<>(List.of(stored.name(), Timestamp.valueOf(start), Timestamp.valueOf(to)));
+        if (role != null) {
+            params.add(role.name());
+        }
+
+        Map<LocalDateTime, Map<UserRole, Long>> buckets = new TreeMap<>();
+        RowCallbackHandler accumulate = rs -> {
+            LocalDateTime bucket = granularity.truncate(rs.getTimestamp(1).toLocalDateTime());
+            buckets.computeIfAbsent(bucket, k -> new EnumMap<>(UserRole.class))
+                    .merge(UserRole.valueOf(rs.getString(2)), rs.getLong(3), Long::sum);
+        };
+        ShardRouter router = shardRouter.getIfAvailable();
+        ShardRoutingDataSource shards = shardRoutingDataSource.getIfAvailable();
+        if (router != null && shards != null) {
+            for (int shard = 0; shard < router.getShardCount(); shard++) {
+                new JdbcTemplate(shards.getShard(shard)).query(sql, accumulate, params.toArray());
+            }
+        } else {
+            jdbcTemplate.query(sql, accumulate, params.toArray());
+        }
+
+        List<SignupTimeseries.Bucket> result = new ArrayList<>(buckets.size());
+        buckets.forEach((bucket, byRole) -> result.add(new SignupTimeseries.Bucket(bucket, byRole)));
+        return new SignupTimeseries(granularity, start, to, result);
+    }
+
+    /**
+     * 回填预聚合（已回填过时直接返回）
+     * 每个库（分片模式下每个分片）在各自的一个事务中清空预聚合后重新统计。MySQL 默认的 REPEATABLE READ 下，
+     * 清空时的 DELETE 对整张预聚合表加临键锁，该库上并发注册的增量更新阻塞到回填提交后再累加，
+     * 而这些注册写入的用户行尚未提交、不在回填读取的快照中，因此不会重复计数；READ COMMITTED 下没有间隙锁，
+     * 回填期间新出现的桶可能被重复计数。分片之间互不等待，某个分片失败时已完成的分片保留标记，重新执行时跳过。
+     * @return 是否有分片执行了回填
+     */
+    public boolean backfill() {
+        ShardRouter router = shardRouter.getIfAvailable();
+        if (router == null) {
+            return backfill(null);
+        }
+        boolean done = false;
+        for (int shard = 0; shard < router.getShardCount(); shard++) {
+            done |= backfill(shard);
+        }
+        return done;
+    }
+
+    /**
+     * 在一个数据库（分片）上回填，标记行、清空、统计和写入都在该库的同一个事务中
+     */
+    private boolean backfill(Integer shard) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Supplier<Boolean> run = () -> transactionTemplate.execute(status -> {
+            try {
+                jdbcTemplate.update("INSERT INTO rollup_backfill (name, completed_at) VALUES (?, ?)",
+                        BACKFILL_NAME, Timestamp.valueOf(LocalDateTime.now()));
+            } catch (DuplicateKeyException e) {
+                return false;
+            }
+
+            long start = System.nanoTime();
+            jdbcTemplate.update("DELETE FROM user_signup_rollup");
+            // 与本事务使用同一连接，读到的是清空预聚合之后的一致快照
+            Map<Bucket, long[]> counts = new HashMap<>();
+            long users = stream(dataSource, counts);
+
+            List<Object[]> rows = new ArrayList<>(counts.size());
+            counts.forEach((bucket, count) -> rows.add(new Object[]{bucket.granularity().name(),
+                    Timestamp.valueOf(bucket.start()), bucket.role().name(), count[0], count[0]}));
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+            logger.info("注册量预聚合回填完成，分片: {}，用户数: {}，桶数: {}，耗时: {} ms", shard, users, rows.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            return true;
+        });
+        return Boolean.TRUE.equals(shard == null ? run.get() : ShardContext.call(shard, run));
+    }
+
+    private long stream(DataSource source, Map<Bucket, long[]> counts) {
+        JdbcTemplate streaming = new JdbcTemplate(source);
+        // MySQL 驱动只有 fetchSize 为 Integer.MIN_VALUE 时才逐行流式读取
+        streaming.setFetchSize(isMySql(source) ? Integer.MIN_VALUE : 1000);
+        long[] users = new long[1];
+        streaming.query("SELECT created_at, role FROM users WHERE created_at IS NOT NULL", rs -> {
+            LocalDateTime createdAt = rs.getTimestamp(1).toLocalDateTime();
+            UserRole role = UserRole.valueOf(rs.getString(2));
+            for (Granularity granularity : STORED) {
+                counts.computeIfAbsent(new Bucket(granularity, granularity.truncate(createdAt), role),
+                        k -> new long[1])[0]++;
+            }
+            users[0]++;
+        });
+        return users[0];
+    }
+
+    private boolean isMySql(DataSource source) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(source, DatabaseMetaData::getDatabaseProductName);
+            return product.toLowerCase(Locale.ROOT).contains("mysql");
+        } catch (MetaDataAccessException e) {
+            return false;
+        }
+    }
+
+    private record Bucket(Granularity granularity, LocalDateTime start, UserRole role) {
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.loginsystem.service;
+
+import com.example.loginsystem.entity.UserChangeLog;
+import com.example.loginsystem.event.UserInvalidationEvent;
+import com.example.loginsystem.repository.UserChangeLogRepository;
+import com.example.loginsystem.sharding.ShardContext;
+import com.example.loginsystem.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 用户变更日志追踪器
+ * 各节点按序号增量拉取 user_change_log，并发布 UserInvalidationEvent 以失效本地状态，
+ * 无需外部消息中间件。
+ *
+ * 自增序号按分配顺序而非提交顺序可见：较小序号的事务可能晚于较大序号提交。
+ * 因此只有连续的序号才推进水位线，遇到空洞时等待 gap-timeout，
+ * 超时后视为已回滚的事务并跳过。
+ * 启动时同理：最大序号之下可能还有未提交的事务，水位线从最大序号回退 startup-lookback 开始，
+ * 回退区间内的空洞统一在启动后 gap-timeout 内等待，重复拉取的日志由已处理序号集合去重。
+ * 分片模式下变更日志写在用户所在分片，每个分片各有一个游标。
+ */
+@Component
+public class UserChangeLogTailer {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserChangeLogTailer.class);
+
+    @Autowired
+    private UserChangeLogRepository changeLogRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectProvider<ShardRouter> shardRouter;
+
+    @Value("${app.change-log.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${app.change-log.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.change-log.gap-timeout-ms:10000}")
+    private long gapTimeoutMs;
+
+    @Value("${app.change-log.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${app.change-log.startup-lookback:200}")
+    private long startupLookback;
+
+    private long lastPurgeAt;
+
+    private ScheduledExecutorService poller;
+
+    private Counter appliedCounter;
+
+    // 每个分片一个游标，未分片时只有一个；首次拉取时创建，仅由追踪线程访问
+    private List<Cursor> cursors;
+
+    @PostConstruct
+    public void start() {
+        lastPurgeAt = System.currentTimeMillis();
+        appliedCounter = Counter.builder("users.change_log.applied")
+                .description("已应用的用户变更日志数")
+                .register(meterRegistry);
+
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "user-change-log-tailer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::pollQuietly, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("用户变更日志追踪已启动");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+
+    /**
+     * 拉取并应用一批变更日志
+     * @return 本次应用的日志数
+     */
+    synchronized int poll() {
+        if (cursors == null) {
+            // 分片模式下其余分片的表结构在启动后期才迁移，游标延迟到首次拉取时创建
+            List<Cursor> created = new ArrayList<>();
+            ShardRouter router = shardRouter.getIfAvailable();
+            for (int shard = 0; shard < (router != null ? router.getShardCount() : 1); shard++) {
+                created.add(new Cursor(router != null ? shard : null));
+            }
+            cursors = created;
+        }
+
+        int applied = 0;
+        for (Cursor cursor : cursors) {
+            applied += cursor.poll();
+        }
+        if (applied > 0) {
+            appliedCounter.increment(applied);
+        }
+        return applied;
+    }
+
+    /**
+     * 当前水位线（分片模式下为分片0的水位线）
+     */
+    public synchronized long getWatermark() {
+        return cursors == null ? 0 : cursors.get(0).watermark;
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurgeAt < TimeUnit.HOURS.toMillis(1)) {
+            return;
+        }
+        lastPurgeAt = now;
+        LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+        for (Cursor cursor : cursors) {
+            int deleted = cursor.onShard(() -> changeLogRepository.deleteByCreatedAtBefore(before));
+            if (deleted > 0) {
+                logger.info("清理过期用户变更日志 {} 条，分片: {}", deleted, cursor.shard);
+            }
+        }
+    }
+
+    /**
+     * 一个数据库（分片）上的变更日志游标
+     * 变更日志与用户表写在同一分片的同一事务中，各分片的序号相互独立，分别维护水位线。
+     */
+    private class Cursor {
+
+        // 分片编号，未分片时为null
+        private final Integer shard;
+
+        // 水位线：小于等于该序号的日志均已处理
+        private long watermark;
+
+        // 已处理但高于水位线的序号
+        private final TreeSet<Long> appliedAboveWatermark = new TreeSet<>();
+
+        // 水位线之后首次发现空洞的时间
+        private long gapDetectedAt;
+
+        // 启动时的最大序号及其之下空洞的等待截止时间
+        private final long startupMaxSeq;
+        private final long startupGapDeadline;
+
+        Cursor(Integer shard) {
+            this.shard = shard;
+            // 从最大序号回退一段开始，覆盖启动时尚未提交的事务；回退区间内的变更会重复应用，失效操作是幂等的
+            startupMaxSeq = onShard(changeLogRepository::findMaxSeq);
+            watermark = Math.max(0, startupMaxSeq - startupLookback);
+            startupGapDeadline = System.currentTimeMillis() + gapTimeoutMs;
+            logger.info("用户变更日志游标就绪，分片: {}，起始序号: {}", shard, watermark);
+        }
+
+        int poll() {
+            int applied = 0;
+            List<UserChangeLog> batch;
+            do {
+                batch = onShard(() -> changeLogRepository.findBySeqGreaterThanOrderBySeqAsc(
+                        watermark, PageRequest.of(0, batchSize)));
+                for (UserChangeLog entry : batch) {
+                    if (appliedAboveWatermark.add(entry.getSeq())) {
+                        eventPublisher.publishEvent(new UserInvalidationEvent(entry.getSeq(), entry.getChangeType(),
+                                entry.getUserId(), entry.getUsername(), entry.getPreviousUsername()));
+                        applied++;
+                    }
+                }
+            } while (advanceWatermark() && batch.size() == batchSize);
+
+            if (applied > 0) {
+                logger.debug("应用用户变更日志 {} 条，分片: {}，当前水位线: {}", applied, shard, watermark);
+            }
+            return applied;
+        }
+
+        /**
+         * 推进水位线
+         * @return 水位线是否有变化
+         */
+        private boolean advanceWatermark() {
+            long before = watermark;
+            while (!appliedAboveWatermark.isEmpty()) {
+                long next = appliedAboveWatermark.first();
+                if (next == watermark + 1) {
+                    watermark = appliedAboveWatermark.pollFirst();
+                    gapDetectedAt = 0;
+                    continue;
+                }
+
+                long now = System.currentTimeMillis();
+                if (next <= startupMaxSeq) {
+                    // 启动前已分配的序号在启动时即可见，回退区间内的空洞共用一次等待
+                    if (now < startupGapDeadline) {
+                        break;
+                    }
+                    watermark = appliedAboveWatermark.pollFirst();
+                    continue;
+                }
+                if (gapDetectedAt == 0) {
+                    gapDetectedAt = now;
+                } else if (now - gapDetectedAt >= gapTimeoutMs) {
+                    logger.debug("变更日志序号 {}~{} 超时未出现，视为已回滚，分片: {}", watermark + 1, next - 1, shard);
+                    watermark = appliedAboveWatermark.pollFirst();
+                    gapDetectedAt = 0;
+                    continue;
+                }
+                break;
+            }
+            return watermark != before;
+        }
+
+        <T> T onShard(Supplier<T> action) {
+            return shard == null ? action.get() : ShardContext.call(shard, action);
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+            purgeExpired();
+        } catch (Exception e) {
+            logger.error("拉取用户变更日志发生异常: ", e);
+        }
+    }
+}
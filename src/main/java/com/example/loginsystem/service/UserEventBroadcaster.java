@@ -0,0 +1,322 @@
+package com.example.loginsystem.service;
+
+import com.example.loginsystem.event.UserChangeEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用户变更事件广播器（Server-Sent Events）
+ * 事务提交后为事件分配递增序号，写入内存环形缓冲区并推送给所有订阅者。
+ * 每个订阅者只有一个有界队列，由共享线程池发送，空闲连接不占用线程；
+ * 队列写满或单次发送超过 send-timeout-ms 的慢消费者会被断开，重连时可通过 Last-Event-ID 从环形缓冲区补发。
+ * 发送超时的线程仍阻塞在该连接的写入上，断开时为线程池临时补充一个线程，其他订阅者的发送不受影响，
+ * 阻塞的写入返回后再收回。
+ */
+@Component
+public class UserEventBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserEventBroadcaster.class);
+
+    // 心跳占位事件
+    private static final SequencedEvent HEARTBEAT = new SequencedEvent(-1, null);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.user-events.ring-size:256}")
+    private int ringSize;
+
+    @Value("${app.user-events.subscriber-buffer:64}")
+    private int subscriberBuffer;
+
+    @Value("${app.user-events.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${app.user-events.heartbeat-interval-ms:15000}")
+    private long heartbeatIntervalMs;
+
+    @Value("${app.user-events.dispatcher-threads:2}")
+    private int dispatcherThreads;
+
+    @Value("${app.user-events.send-timeout-ms:5000}")
+    private long sendTimeoutMs;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // 环形缓冲区及序号，均由 ringLock 保护
+    private final Object ringLock = new Object();
+    private SequencedEvent[] ring;
+    private long lastSequence;
+
+    private ThreadPoolExecutor dispatcher;
+    private ScheduledExecutorService heartbeat;
+    private Counter evictions;
+
+    @PostConstruct
+    public void start() {
+        ring = new SequencedEvent[ringSize];
+        // 序号以启动时间为基数，重启后客户端携带的旧ID会被识别为需要重新同步
+        lastSequence = System.currentTimeMillis() * 1000;
+        AtomicInteger threadIndex = new AtomicInteger();
+        dispatcher = new ThreadPoolExecutor(dispatcherThreads, dispatcherThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "user-events-dispatcher-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "user-events-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeat, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        long checkIntervalMs = Math.max(10, sendTimeoutMs / 2);
+        heartbeat.scheduleAtFixedRate(this::evictStuckSubscribers, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("users.events.subscribers", subscribers, Set::size)
+                .description("当前用户变更事件订阅数")
+                .register(meterRegistry);
+        evictions = Counter.builder("users.events.evictions")
+                .description("因缓冲区写满或发送超时被断开的订阅数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 新建订阅
+     * @param lastEventId 客户端最后收到的事件ID，为null时只接收新事件
+     * @return SSE发射器
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = newEmitter();
+
+        Subscriber subscriber;
+        synchronized (ringLock) {
+            List<SequencedEvent> replay = new ArrayList<>();
+            boolean gap = false;
+            if (lastEventId != null && lastEventId > lastSequence) {
+                gap = true;
+            } else if (lastEventId != null && lastEventId < lastSequence) {
+                long oldest = lastSequence;
+                for (SequencedEvent event : ring) {
+                    if (event != null && event.id() > lastEventId) {
+                        replay.add(event);
+                        oldest = Math.min(oldest, event.id());
+                    }
+                }
+                replay.sort((a, b) -> Long.compare(a.id(), b.id()));
+                gap = oldest > lastEventId + 1;
+            }
+
+            // 补发事件不占用实时缓冲区的容量
+            subscriber = new Subscriber(emitter, subscriberBuffer + replay.size() + 1);
+            if (gap) {
+                // 请求的位置已被环形缓冲区覆盖，提示客户端重新拉取全量数据
+                subscriber.queue.offer(new SequencedEvent(lastSequence, null));
+            }
+            replay.forEach(subscriber.queue::offer);
+            subscribers.add(subscriber);
+        }
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        logger.info("新增用户变更事件订阅，Last-Event-ID: {}，当前订阅数: {}", lastEventId, subscribers.size());
+        subscriber.scheduleDrain();
+        return emitter;
+    }
+
+    /**
+     * 事务提交后分发用户变更事件
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChange(UserChangeEvent event) {
+        synchronized (ringLock) {
+            SequencedEvent sequenced = new SequencedEvent(++lastSequence, event);
+            ring[(int) (sequenced.id() % ringSize)] = sequenced;
+            for (Subscriber subscriber : subscribers) {
+                subscriber.enqueue(sequenced);
+            }
+        }
+    }
+
+    /**
+     * 当前订阅数
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        dispatcher.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(emitterTimeoutMs);
+    }
+
+    private void sendHeartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(HEARTBEAT);
+        }
+    }
+
+    /**
+     * 断开单次发送超过 send-timeout-ms 的订阅者，并为线程池补充被占住的线程
+     */
+    private void evictStuckSubscribers() {
+        long now = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (Subscriber subscriber : subscribers) {
+            long since = subscriber.sendingSince;
+            if (since != 0 && now - since > timeoutNanos && subscriber.stuck.compareAndSet(false, true)) {
+                resizeDispatcher(1);
+                evict(subscriber, "发送超时");
+            }
+        }
+    }
+
+    private void evict(Subscriber subscriber, String reason) {
+        if (subscribers.remove(subscriber)) {
+            subscriber.evicted = true;
+            evictions.increment();
+            logger.warn("用户变更事件订阅者消费过慢（{}），已断开", reason);
+            if (subscriber.sendingSince == 0) {
+                // 发送线程可能正要开始发送，异步关闭以免阻塞广播；正在发送时由发送线程在写入返回后关闭
+                CompletableFuture.runAsync(subscriber.emitter::complete);
+            }
+        }
+    }
+
+    private void resizeDispatcher(int delta) {
+        synchronized (dispatcher) {
+            if (delta > 0) {
+                dispatcher.setMaximumPoolSize(dispatcher.getMaximumPoolSize() + delta);
+                dispatcher.setCorePoolSize(dispatcher.getCorePoolSize() + delta);
+            } else {
+                dispatcher.setCorePoolSize(dispatcher.getCorePoolSize() + delta);
+                dispatcher.setMaximumPoolSize(dispatcher.getMaximumPoolSize() + delta);
+            }
+        }
+    }
+
+    /**
+     * 带序号的事件，event为null且id非负时表示"需要重新同步"
+     */
+    private record SequencedEvent(long id, UserChangeEvent event) {
+    }
+
+    /**
+     * 单个订阅者：有界队列 + 单线程顺序发送
+     */
+    private class Subscriber {
+
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<SequencedEvent> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        // 当前发送开始的时间（System.nanoTime），0 表示没有在发送
+        private volatile long sendingSince;
+
+        // 发送超时后已为线程池补充线程，写入返回时收回
+        private final AtomicBoolean stuck = new AtomicBoolean();
+
+        private volatile boolean evicted;
+
+        Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void enqueue(SequencedEvent event) {
+            if (queue.offer(event)) {
+                scheduleDrain();
+            } else {
+                // 慢消费者：断开连接，由客户端携带 Last-Event-ID 重连
+                evict(this, "缓冲区已满");
+            }
+        }
+
+        void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SequencedEvent event;
+                while (!evicted && (event = queue.poll()) != null) {
+                    sendingSince = System.nanoTime() | 1;
+                    try {
+                        send(event);
+                    } finally {
+                        sendingSince = 0;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(this);
+                logger.debug("用户变更事件发送失败，移除订阅: {}", e.getMessage());
+                return;
+            } finally {
+                draining.set(false);
+                if (stuck.compareAndSet(true, false)) {
+                    resizeDispatcher(-1);
+                }
+            }
+            if (evicted) {
+                emitter.complete();
+                return;
+            }
+            // 释放标记后可能有新事件入队
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void send(SequencedEvent event) throws IOException {
+            if (event == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else if (event.event() == null) {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(event.id()))
+                        .name("RESYNC")
+                        .data("事件已超出补发范围，请重新拉取用户列表"));
+            } else {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(event.id()))
+                        .name(event.event().getType().name())
+                        .data(event.event()));
+            }
+        }
+    }
+}
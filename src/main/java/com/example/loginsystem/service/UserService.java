@@ -1,20 +1,45 @@
 package com.example.loginsystem.service;
 
+import com.example.loginsystem.cache.UserCache;
+import com.example.loginsystem.directory.UserDirectory;
 import com.example.loginsystem.dto.RegisterRequest;
+import com.example.loginsystem.dto.UserLookupRequest;
+import com.example.loginsystem.dto.UserLookupResult;
 import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserChangeLog;
 import com.example.loginsystem.entity.UserRole;
+import com.example.loginsystem.event.UserChangeEvent;
+import com.example.loginsystem.journal.LoginJournal;
+import com.example.loginsystem.journal.LoginOutcome;
+import com.example.loginsystem.repository.UserChangeLogRepository;
+import com.example.loginsystem.repository.UserField;
 import com.example.loginsystem.repository.UserRepository;
+import com.example.loginsystem.sharding.ShardContext;
+import com.example.loginsystem.sharding.ShardRouter;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.UnaryOperator;
 
 /**
  * 用户服务类
@@ -28,9 +53,62 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserChangeLogRepository changeLogRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private LoginActivityRecorder loginActivityRecorder;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+
+    @Autowired
+    private SignupRollupService signupRollupService;
+
+    @Autowired
+    private ObjectProvider<UserDirectory> userDirectoryProvider;
+
+    @Autowired
+    private ObjectProvider<LoginJournal> loginJournalProvider;
+
+    @Autowired
+    private ObjectProvider<UserCache> userCacheProvider;
+
+    @Autowired
+    private ObjectProvider<ShardRouter> shardRouterProvider;
+
+    @Value("${app.lookup.max-keys:5000}")
+    private int lookupMaxKeys;
+
+    @Value("${app.lookup.chunk-size:500}")
+    private int lookupChunkSize;
+
+    // 开启内存用户目录时查询由目录返回，否则为null
+    private UserDirectory directory;
+
+    // 开启登录事件日志时记录每次登录尝试，否则为null
+    private LoginJournal loginJournal;
+
+    // 开启用户缓存时按ID查询先查缓存，否则为null
+    private UserCache userCache;
+
+    // 分片模式下的路由规则，否则为null
+    private ShardRouter shardRouter;
+
+    @PostConstruct
+    public void init() {
+        directory = userDirectoryProvider.getIfAvailable();
+        loginJournal = loginJournalProvider.getIfAvailable();
+        userCache = userCacheProvider.getIfAvailable();
+        shardRouter = shardRouterProvider.getIfAvailable();
+    }
+
     /**
      * 用户登录验证
      * @param username 用户名
@@ -38,23 +116,46 @@ public class UserService {
      * @return 用户信息，验证失败返回null
      */
     public User login(String username, String password) {
+        return login(username, password, null);
+    }
+
+    /**
+     * 用户登录验证，并把本次尝试记入登录事件日志
+     * @param username 用户名
+     * @param password 密码
+     * @param clientIp 客户端IP，可为null
+     * @return 用户信息，验证失败返回null
+     */
+    public User login(String username, String password, String clientIp) {
         logger.info("尝试登录用户: {}", username);
+        long start = System.nanoTime();
+        LoginOutcome outcome = LoginOutcome.ERROR;
+        Long userId = null;
 
         try {
             Optional<User> userOpt = userRepository.findByUsername(username);
             if (userOpt.isPresent()) {
                 User user = userOpt.get();
+                userId = user.getId();
                 if (passwordEncoder.matches(password, user.getPassword())) {
                     logger.info("用户 {} 登录成功", username);
+                    loginActivityRecorder.record(user.getId(), LocalDateTime.now());
+                    outcome = LoginOutcome.SUCCESS;
                     return user;
                 } else {
                     logger.warn("用户 {} 密码错误", username);
+                    outcome = LoginOutcome.BAD_PASSWORD;
                 }
             } else {
                 logger.warn("用户 {} 不存在", username);
+                outcome = LoginOutcome.UNKNOWN_USER;
             }
         } catch (Exception e) {
             logger.error("登录过程发生异常: ", e);
+        } finally {
+            if (loginJournal != null) {
+                loginJournal.append(username, outcome, clientIp, System.nanoTime() - start, userId);
+            }
         }
 
         return null;
@@ -68,6 +169,9 @@ public class UserService {
      */
     public User register(RegisterRequest request) {
         logger.info("尝试注册新用户: {}", request.getUsername());
+        if (shardRouter != null) {
+            ShardContext.bindToTransaction(shardRouter.shardOfUsername(request.getUsername()));
+        }
 
         // 检查用户名是否已存在
         if (userRepository.existsByUsername(request.getUsername())) {
@@ -84,6 +188,10 @@ public class UserService {
 
             User savedUser = userRepository.save(user);
             logger.info("新用户 {} 注册成功，ID: {}", savedUser.getUsername(), savedUser.getId());
+            changeLogRepository.save(new UserChangeLog(UserChangeEvent.Type.CREATED,
+                    savedUser.getId(), savedUser.getUsername(), null));
+            signupRollupService.record(savedUser.getCreatedAt(), savedUser.getRole(), 1);
+            eventPublisher.publishEvent(UserChangeEvent.created(savedUser));
 
             return savedUser;
         } catch (Exception e) {
@@ -99,29 +207,133 @@ public class UserService {
     @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         logger.info("获取所有用户列表");
+        if (directory != null) {
+            return directory.findAll(null);
+        }
         return userRepository.findAllByOrderByCreatedAtDesc();
     }
 
+    /**
+     * 获取所有用户，只查询选中的字段
+     * @param fields 选中的字段
+     * @return 部分填充的用户列表
+     */
+    @Transactional(readOnly = true)
+    public List<User> getAllUsers(Set<UserField> fields) {
+        logger.info("获取所有用户列表，字段: {}", fields);
+        if (directory != null) {
+            return directory.findAll(fields);
+        }
+        return retainFields(userRepository.findAllProjected(fields), fields);
+    }
+
     /**
      * 根据ID获取用户
+     * 不单独开启事务：缓存命中时不获取数据库连接，未命中时由 findById 自己的只读事务加载
      * @param id 用户ID
      * @return 用户信息
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public User getUserById(Long id) {
         logger.info("获取用户信息，ID: {}", id);
+        if (directory != null && id != null) {
+            return directory.findById(id);
+        }
+        if (userCache != null && id != null) {
+            return userCache.get(id, key -> userRepository.findById(key).orElse(null));
+        }
         return userRepository.findById(id).orElse(null);
     }
 
+    /**
+     * 批量查询用户
+     * 去重后按 chunk-size 分块执行 IN 查询，结果按请求顺序排列并列出未找到的ID和用户名
+     * @param request 要查询的ID和用户名
+     * @return 查询结果
+     * @throws IllegalArgumentException 查询数量超过上限时抛出异常
+     */
+    @Transactional(readOnly = true)
+    public UserLookupResult lookupUsers(UserLookupRequest request) {
+        LinkedHashSet<Long> ids = new LinkedHashSet<>(request.getIds());
+        ids.remove(null);
+        LinkedHashSet<String> usernames = new LinkedHashSet<>(request.getUsernames());
+        usernames.remove(null);
+        if (ids.size() + usernames.size() > lookupMaxKeys) {
+            throw new IllegalArgumentException("一次最多查询 " + lookupMaxKeys + " 个用户");
+        }
+        logger.info("批量查询用户，ID {} 个，用户名 {} 个", ids.size(), usernames.size());
+
+        Map<Long, User> byId = new HashMap<>();
+        // MySQL 默认排序规则下用户名比较不区分大小写，按小写对应回请求
+        Map<String, User> byUsername = new HashMap<>();
+        if (directory != null) {
+            for (Long id : ids) {
+                User user = directory.findById(id);
+                if (user != null) {
+                    byId.put(id, user);
+                }
+            }
+            for (String username : usernames) {
+                User user = directory.findByUsername(username);
+                if (user != null) {
+                    byUsername.put(username.toLowerCase(Locale.ROOT), user);
+                }
+            }
+        } else {
+            for (List<Long> chunk : chunks(new ArrayList<>(ids))) {
+                userRepository.findAllById(chunk).forEach(user -> byId.put(user.getId(), user));
+            }
+            for (List<String> chunk : chunks(new ArrayList<>(usernames))) {
+                userRepository.findByUsernameIn(chunk)
+                        .forEach(user -> byUsername.put(user.getUsername().toLowerCase(Locale.ROOT), user));
+            }
+        }
+
+        // 按ID去重：分片模式下按ID和按用户名查到的是不同的实体实例
+        Map<Long, User> users = new LinkedHashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            User user = byId.get(id);
+            if (user != null) {
+                users.put(user.getId(), user);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        List<String> missingUsernames = new ArrayList<>();
+        for (String username : usernames) {
+            User user = byUsername.get(username.toLowerCase(Locale.ROOT));
+            if (user != null) {
+                users.putIfAbsent(user.getId(), user);
+            } else {
+                missingUsernames.add(username);
+            }
+        }
+        return new UserLookupResult(new ArrayList<>(users.values()), missingIds, missingUsernames);
+    }
+
+    private <T> List<List<T>> chunks(List<T> keys) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += lookupChunkSize) {
+            chunks.add(keys.subList(from, Math.min(keys.size(), from + lookupChunkSize)));
+        }
+        return chunks;
+    }
+
     /**
      * 根据用户名获取用户
+     * 并发的相同查询合并执行；不开启事务，等待合并结果的调用不占用数据库连接
      * @param username 用户名
      * @return 用户信息
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public User getUserByUsername(String username) {
         logger.info("根据用户名获取用户信息: {}", username);
-        return userRepository.findByUsername(username).orElse(null);
+        if (directory != null) {
+            return directory.findByUsername(username);
+        }
+        return requestCoalescer.execute("getUserByUsername", username,
+                () -> userRepository.findByUsername(username).orElse(null), User::copy);
     }
 
     /**
@@ -133,6 +345,7 @@ public class UserService {
      */
     public User updateUser(Long id, User updatedUser) {
         logger.info("尝试更新用户信息，ID: {}", id);
+        bindShardOfId(id);
 
         Optional<User> userOpt = userRepository.findById(id);
         if (userOpt.isEmpty()) {
@@ -141,6 +354,8 @@ public class UserService {
         }
 
         User user = userOpt.get();
+        String previousUsername = user.getUsername();
+        UserRole previousRole = user.getRole();
 
         try {
             // 检查用户名是否被其他用户占用
@@ -169,6 +384,14 @@ public class UserService {
 
             User savedUser = userRepository.save(user);
             logger.info("用户 {} 信息更新成功", savedUser.getUsername());
+            changeLogRepository.save(new UserChangeLog(UserChangeEvent.Type.UPDATED, savedUser.getId(),
+                    savedUser.getUsername(), previousUsername.equals(savedUser.getUsername()) ? null : previousUsername));
+            if (previousRole != savedUser.getRole()) {
+                // 注册量按角色预聚合，角色变化时从原角色移到新角色
+                signupRollupService.record(savedUser.getCreatedAt(), previousRole, -1);
+                signupRollupService.record(savedUser.getCreatedAt(), savedUser.getRole(), 1);
+            }
+            eventPublisher.publishEvent(UserChangeEvent.updated(savedUser));
 
             return savedUser;
         } catch (Exception e) {
@@ -184,11 +407,18 @@ public class UserService {
      */
     public boolean deleteUser(Long id) {
         logger.info("尝试删除用户，ID: {}", id);
+        bindShardOfId(id);
 
         try {
-            if (userRepository.existsById(id)) {
-                userRepository.deleteById(id);
+            Optional<User> userOpt = userRepository.findById(id);
+            if (userOpt.isPresent()) {
+                User user = userOpt.get();
+                userRepository.delete(user);
+                changeLogRepository.save(new UserChangeLog(UserChangeEvent.Type.DELETED,
+                        id, user.getUsername(), null));
+                signupRollupService.record(user.getCreatedAt(), user.getRole(), -1);
                 logger.info("用户删除成功，ID: {}", id);
+                eventPublisher.publishEvent(UserChangeEvent.deleted(user));
                 return true;
             } else {
                 logger.warn("要删除的用户不存在，ID: {}", id);
@@ -208,17 +438,40 @@ public class UserService {
     @Transactional(readOnly = true)
     public List<User> getUsersByRole(UserRole role) {
         logger.info("根据角色获取用户列表: {}", role);
+        if (directory != null) {
+            return directory.findByRole(role, null);
+        }
         return userRepository.findByRoleOrderByCreatedAtDesc(role);
     }
 
+    /**
+     * 根据角色获取用户列表，只查询选中的字段
+     * @param role 用户角色
+     * @param fields 选中的字段
+     * @return 部分填充的用户列表
+     */
+    @Transactional(readOnly = true)
+    public List<User> getUsersByRole(UserRole role, Set<UserField> fields) {
+        logger.info("根据角色获取用户列表: {}，字段: {}", role, fields);
+        if (directory != null) {
+            return directory.findByRole(role, fields);
+        }
+        return retainFields(userRepository.findByRoleProjected(role, fields), fields);
+    }
+
     /**
      * 检查用户名是否存在
+     * 并发的相同查询合并执行；不开启事务，等待合并结果的调用不占用数据库连接
      * @param username 用户名
      * @return 是否存在
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public boolean existsByUsername(String username) {
-        return userRepository.existsByUsername(username);
+        if (directory != null) {
+            return directory.existsByUsername(username);
+        }
+        return requestCoalescer.execute("existsByUsername", username,
+                () -> userRepository.existsByUsername(username), UnaryOperator.identity());
     }
 
     /**
@@ -228,6 +481,9 @@ public class UserService {
      */
     @Transactional(readOnly = true)
     public long countUsersByRole(UserRole role) {
+        if (directory != null) {
+            return directory.countByRole(role);
+        }
         return userRepository.countByRole(role);
     }
 
@@ -242,6 +498,56 @@ public class UserService {
         if (!StringUtils.hasText(keyword)) {
             return getAllUsers();
         }
+        if (directory != null) {
+            return directory.search(keyword, null);
+        }
         return userRepository.findByUsernameContaining(keyword);
     }
-}
\ No newline at end of file
+
+    /**
+     * 搜索用户，只查询选中的字段
+     * @param keyword 搜索关键词
+     * @param fields 选中的字段
+     * @return 部分填充的用户列表
+     */
+    @Transactional(readOnly = true)
+    public List<User> searchUsers(String keyword, Set<UserField> fields) {
+        logger.info("搜索用户，关键词: {}，字段: {}", keyword, fields);
+        if (!StringUtils.hasText(keyword)) {
+            return getAllUsers(fields);
+        }
+        if (directory != null) {
+            return directory.search(keyword, fields);
+        }
+        return retainFields(userRepository.findByUsernameContainingProjected(keyword, fields), fields);
+    }
+
+    /**
+     * 分片模式下在第一条SQL之前把事务固定到用户所在分片，用户表、变更日志和注册量预聚合在同一个分片事务中提交
+     */
+    private void bindShardOfId(Long id) {
+        int shard = shardRouter != null && id != null ? shardRouter.shardOfId(id) : -1;
+        if (shard >= 0) {
+            ShardContext.bindToTransaction(shard);
+        }
+    }
+
+    /**
+     * 投影查询总会带上用于排序的 id 和 createdAt，未选中时在返回前清除
+     */
+    private List<User> retainFields(List<User> users, Set<UserField> fields) {
+        boolean keepId = fields.contains(UserField.ID);
+        boolean keepCreatedAt = fields.contains(UserField.CREATED_AT);
+        if (!keepId || !keepCreatedAt) {
+            for (User user : users) {
+                if (!keepId) {
+                    user.setId(null);
+                }
+                if (!keepCreatedAt) {
+                    user.setCreatedAt(null);
+                }
+            }
+        }
+        return users;
+    }
+}
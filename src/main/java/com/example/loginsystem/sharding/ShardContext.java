@@ -0,0 +1,87 @@
+package com.example.loginsystem.sharding;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * 当前线程的目标分片
+ * 由 ShardRoutingDataSource 在获取物理连接时读取，未设置时使用分片0。
+ * 事务内可通过 {@link #bindToTransaction} 把整个事务固定在一个分片上。
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    // 事务资源的键，值为事务固定的分片
+    private static final Object TRANSACTION_KEY = new Object();
+
+    private ShardContext() {
+    }
+
+    /**
+     * 当前线程绑定的分片，未绑定时返回null
+     */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 在指定分片上执行操作，执行完毕后恢复原来的分片
+     * @param shard 分片编号
+     * @param action 操作
+     * @return 操作结果
+     */
+    public static <T> T call(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 把当前事务固定在指定分片上，事务结束后解除
+     * 物理连接在第一条SQL执行时才获取，只要在此之前固定，事务中的全部SQL（用户表、变更日志、注册量预聚合）
+     * 都在该分片的同一个连接上提交或回滚。
+     * @param shard 分片编号
+     * @return 是否已固定；当前没有进行中的事务时返回false，由调用方自行限定分片范围
+     * @throws IllegalStateException 当前事务已固定在其他分片时抛出异常
+     */
+    public static boolean bindToTransaction(int shard) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        Integer bound = (Integer) TransactionSynchronizationManager.getResource(TRANSACTION_KEY);
+        if (bound != null) {
+            if (bound != shard) {
+                throw new IllegalStateException("分片模式下一个事务只能访问一个分片，当前分片: " + bound + "，目标分片: " + shard);
+            }
+            return true;
+        }
+
+        Integer previous = CURRENT.get();
+        TransactionSynchronizationManager.bindResource(TRANSACTION_KEY, shard);
+        CURRENT.set(shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_KEY);
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        });
+        return true;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.loginsystem.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * 分片路由规则
+ * 用户按用户名的稳定哈希分配到分片；用户ID的高位编码所在分片，
+ * 分片k的自增ID从 k * 2^40 + 1 开始，因此按ID查询无需额外查找。
+ * 未分片时的历史ID都小于 2^40，按ID会路由到分片0，只有用户名哈希也为0的历史用户才能按用户名找到；
+ * 其余历史用户需重新分配ID，否则 ShardSchemaInitializer 拒绝启动。
+ */
+public class ShardRouter {
+
+    /**
+     * 每个分片可用的ID位数
+     */
+    public static final int SHARD_ID_BITS = 40;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int shardCount;
+
+    public ShardRouter(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("分片数量必须大于0");
+        }
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * 根据用户名计算分片
+     * MySQL默认排序规则不区分大小写，哈希前统一转为小写，保证唯一约束跨分片仍然成立
+     * @param username 用户名
+     * @return 分片编号
+     */
+    public int shardOfUsername(String username) {
+        byte[] bytes = username.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        // FNV-1a 64位哈希，与JVM实现无关，可跨语言复现
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : bytes) {
+            hash ^= (b & 0xff);
+            hash *= FNV_PRIME;
+        }
+        return (int) Math.floorMod(hash, (long) shardCount);
+    }
+
+    /**
+     * 根据用户ID解析分片
+     * @param id 用户ID
+     * @return 分片编号，ID不属于任何分片时返回-1
+     */
+    public int shardOfId(long id) {
+        if (id <= 0) {
+            return -1;
+        }
+        long shard = id >>> SHARD_ID_BITS;
+        return shard < shardCount ? (int) shard : -1;
+    }
+
+    /**
+     * 分片的起始自增ID
+     * @param shard 分片编号
+     * @return 起始ID
+     */
+    public long firstIdOf(int shard) {
+        return ((long) shard << SHARD_ID_BITS) + 1;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+}
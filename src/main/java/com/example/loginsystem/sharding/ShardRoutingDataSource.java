@@ -0,0 +1,37 @@
+package com.example.loginsystem.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 按 ShardContext 路由的数据源
+ * 需要外层包装 LazyConnectionDataSourceProxy，使物理连接在第一条SQL执行时才按分片获取。
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+
+    /**
+     * 获取指定分片的物理数据源
+     * @param shard 分片编号
+     * @return 数据源
+     */
+    public DataSource getShard(int shard) {
+        return getResolvedDataSources().get(shard);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataSource dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.loginsystem.sharding;
+
+import jakarta.annotation.PostConstruct;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/**
+ * 分片表结构初始化
+ * Spring Boot 的 Flyway 只迁移默认分片，其余分片在这里执行同一套迁移脚本；
+ * 并把每个分片的自增起点调整到 ShardRouter 规定的ID区间。
+ * 多分片时还会检查分片0上未分片时期的历史用户，用户名哈希不在分片0的拒绝启动。
+ */
+public class ShardSchemaInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardSchemaInitializer.class);
+
+    // 与 spring.flyway.locations 保持一致
+    private static final String MIGRATION_LOCATION = "classpath:db/migration/{vendor}";
+
+    private final ShardRoutingDataSource routingDataSource;
+    private final ShardRouter router;
+
+    public ShardSchemaInitializer(ShardRoutingDataSource routingDataSource, ShardRouter router) {
+        this.routingDataSource = routingDataSource;
+        this.router = router;
+    }
+
+    @PostConstruct
+    public void initialize() throws MetaDataAccessException {
+        for (int shard = 0; shard < router.getShardCount(); shard++) {
+            DataSource dataSource = routingDataSource.getShard(shard);
+            String productName = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            String vendor = DatabaseDriver.fromProductName(productName).getId();
+
+            Flyway.configure()
+                    .dataSource(dataSource)
+                    .locations(MIGRATION_LOCATION.replace("{vendor}", vendor))
+                    .baselineOnMigrate(true)
+                    .baselineVersion("0")
+                    .load()
+                    .migrate();
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            if (shard == 0 && router.getShardCount() > 1) {
+                checkLegacyUsers(jdbcTemplate);
+            }
+            long firstId = router.firstIdOf(shard);
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class);
+            if (maxId == null || maxId < firstId) {
+                jdbcTemplate.execute("ALTER TABLE users AUTO_INCREMENT = " + firstId);
+            }
+            logger.info("分片 {} 表结构就绪，ID起点: {}", shard, firstId);
+        }
+    }
+
+    /**
+     * 检查分片0上的历史用户
+     * 小于 2^40 的ID按ID路由到分片0，按用户名则路由到哈希分片；两者不一致时登录查不到该用户，
+     * 同名注册也会在另一个分片上成功。搬移数据行无法解决（ID不变仍指向分片0），
+     * 这类用户需要先在目标分片的ID区间内重新分配ID后才能启用分片。
+     */
+    private void checkLegacyUsers(JdbcTemplate jdbcTemplate) {
+        long[] misplaced = new long[1];
+        StringBuilder examples = new StringBuilder();
+        jdbcTemplate.query("SELECT id, username FROM users WHERE id < ?", rs -> {
+            String username = rs.getString("username");
+            int shard = router.shardOfUsername(username);
+            if (shard == 0) {
+                return;
+            }
+            if (misplaced[0]++ < 5) {
+                examples.append(examples.length() == 0 ? "" : ", ")
+                        .append(username).append("(id=").append(rs.getLong("id"))
+                        .append(" -> 分片").append(shard).append(')');
+            }
+        }, router.firstIdOf(1));
+        if (misplaced[0] > 0) {
+            throw new IllegalStateException("分片0上有 " + misplaced[0] + " 个历史用户的用户名哈希不在分片0，"
+                    + "需先将其重新分配到目标分片的ID区间后再启用分片，例如: " + examples);
+        }
+    }
+}
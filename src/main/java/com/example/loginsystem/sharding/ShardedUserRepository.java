@@ -0,0 +1,272 @@
+package com.example.loginsystem.sharding;
+
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.repository.UserRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * 分片用户仓库
+ * 以动态代理实现 UserRepository，把每次调用路由到对应分片：
+ * 按用户名的查询走用户名哈希分片，按ID的操作走ID编码的分片，
+ * 列表、统计和搜索并行查询所有分片后按 createdAt 降序合并。
+ * 单分片操作加入调用方的事务，并把该事务固定在目标分片上（见 {@link ShardContext#bindToTransaction}），
+ * 同一事务中的变更日志和注册量预聚合与用户表写在同一个分片连接上；跨分片查询在各自线程的独立事务中执行。
+ */
+public class ShardedUserRepository implements InvocationHandler {
+
+    // 与 findAllByOrderByCreatedAtDesc 一致的合并顺序
+    private static final Comparator<User> NEWEST_FIRST = Comparator
+            .comparing(User::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(User::getId, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    /**
+     * 仓库方法的路由方式
+     */
+    enum Route {
+        // 按第一个参数（用户名）所在分片
+        USERNAME,
+        // 按第一个参数（ID）所在分片
+        ID,
+        // 按实体的用户名和ID所在分片
+        WRITE,
+        // 按实体ID所在分片
+        DELETE,
+        // ID按分片分组后并行查询
+        ALL_BY_ID,
+        // 用户名按分片分组后并行查询
+        USERNAME_IN,
+        // 查询所有分片后合并排序
+        SCATTER_LIST,
+        // 查询所有分片后求和
+        SCATTER_COUNT
+    }
+
+    private final UserRepository delegate;
+    private final ShardRouter router;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService scatterExecutor;
+
+    private ShardedUserRepository(UserRepository delegate, ShardRouter router,
+                                  PlatformTransactionManager transactionManager, ExecutorService scatterExecutor) {
+        this.delegate = delegate;
+        this.router = router;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.scatterExecutor = scatterExecutor;
+    }
+
+    /**
+     * 创建分片路由代理
+     * @param delegate Spring Data 生成的单库仓库
+     * @param router 分片路由规则
+     * @param transactionManager 事务管理器
+     * @param scatterExecutor 跨分片并行查询线程池
+     * @return 路由代理
+     */
+    public static UserRepository create(UserRepository delegate, ShardRouter router,
+                                        PlatformTransactionManager transactionManager,
+                                        ExecutorService scatterExecutor) {
+        return (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                new ShardedUserRepository(delegate, router, transactionManager, scatterExecutor));
+    }
+
+    /**
+     * 仓库方法的路由方式
+     * @param method 仓库方法
+     * @return 路由方式，分片模式下不支持时返回null
+     */
+    static Route routeOf(Method method) {
+        int argCount = method.getParameterCount();
+        return switch (method.getName()) {
+            case "findByUsername", "existsByUsername", "existsByUsernameAndIdNot" -> Route.USERNAME;
+            case "findById", "existsById", "deleteById" -> Route.ID;
+            case "save", "saveAndFlush" -> Route.WRITE;
+            case "delete" -> Route.DELETE;
+            case "findAllById" -> Route.ALL_BY_ID;
+            case "findByUsernameIn" -> Route.USERNAME_IN;
+            case "findAllByOrderByCreatedAtDesc", "findByRoleOrderByCreatedAtDesc",
+                    "findByRole", "findByUsernameContaining", "findAllProjected", "findByRoleProjected",
+                    "findByUsernameContainingProjected" -> Route.SCATTER_LIST;
+            case "findAll" -> argCount == 0 ? Route.SCATTER_LIST : null;
+            case "count" -> argCount == 0 ? Route.SCATTER_COUNT : null;
+            case "countByRole" -> argCount == 1 ? Route.SCATTER_COUNT : null;
+            default -> null;
+        };
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> "ShardedUserRepository{shards=" + router.getShardCount() + "}";
+            };
+        }
+
+        Route route = routeOf(method);
+        if (route == null) {
+            throw new UnsupportedOperationException("分片模式下不支持该仓库方法: " + method);
+        }
+        try {
+            return switch (route) {
+                case USERNAME -> inShard(router.shardOfUsername((String) args[0]), method, args);
+                case ID -> byId(method, args);
+                case WRITE -> inShard(shardForWrite((User) args[0]), method, args);
+                case DELETE -> byId(method, new Object[]{((User) args[0]).getId()}, args);
+                case ALL_BY_ID -> findAllById(method, args);
+                case USERNAME_IN -> findByUsernameIn(method, args);
+                case SCATTER_LIST -> scatterList(method, args);
+                case SCATTER_COUNT -> scatterCount(method, args);
+            };
+        } catch (CompletionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 写入时的目标分片
+     * 新用户按用户名哈希分配；已有用户的分片由ID决定，改名不能跨分片迁移
+     */
+    private int shardForWrite(User user) {
+        int shard = router.shardOfUsername(user.getUsername());
+        if (user.getId() != null && router.shardOfId(user.getId()) != shard) {
+            throw new IllegalStateException("分片模式下修改后的用户名必须与原用户名位于同一分片");
+        }
+        return shard;
+    }
+
+    private Object byId(Method method, Object[] args) throws Throwable {
+        return byId(method, args, args);
+    }
+
+    private Object byId(Method method, Object[] routingArgs, Object[] args) throws Throwable {
+        Long id = (Long) routingArgs[0];
+        int shard = id == null ? -1 : router.shardOfId(id);
+        if (shard < 0) {
+            // ID不属于任何分片，等同于不存在
+            Class<?> returnType = method.getReturnType();
+            if (returnType == Optional.class) {
+                return Optional.empty();
+            }
+            return returnType == boolean.class ? Boolean.FALSE : null;
+        }
+        return inShard(shard, method, args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object findAllById(Method method, Object[] args) {
+        Map<Integer, List<Object>> idsByShard = new LinkedHashMap<>();
+        for (Long id : (Iterable<Long>) args[0]) {
+            int shard = id == null ? -1 : router.shardOfId(id);
+            if (shard >= 0) {
+                idsByShard.computeIfAbsent(shard, k -> new ArrayList<>()).add(id);
+            }
+        }
+        return gather(method, idsByShard);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object findByUsernameIn(Method method, Object[] args) {
+        Map<Integer, List<Object>> usernamesByShard = new LinkedHashMap<>();
+        for (String username : (Iterable<String>) args[0]) {
+            if (username != null) {
+                usernamesByShard.computeIfAbsent(router.shardOfUsername(username), k -> new ArrayList<>()).add(username);
+            }
+        }
+        return gather(method, usernamesByShard);
+    }
+
+    /**
+     * 只查询包含目标键的分片，各分片并行执行后拼接结果
+     */
+    @SuppressWarnings("unchecked")
+    private List<User> gather(Method method, Map<Integer, List<Object>> keysByShard) {
+        List<CompletableFuture<List<User>>> futures = new ArrayList<>();
+        keysByShard.forEach((shard, keys) -> futures.add(
+                CompletableFuture.supplyAsync(() -> (List<User>) invokeInShard(shard, method, keys), scatterExecutor)));
+
+        List<User> result = new ArrayList<>();
+        futures.forEach(future -> result.addAll(future.join()));
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object scatterList(Method method, Object[] args) {
+        List<User> merged = new ArrayList<>();
+        for (Object partial : scatter(method, args)) {
+            merged.addAll((List<User>) partial);
+        }
+        // 各分片结果本身已有序，TimSort 会识别这些有序段并做归并
+        merged.sort(NEWEST_FIRST);
+        return merged;
+    }
+
+    private Object scatterCount(Method method, Object[] args) {
+        long total = 0;
+        for (Object partial : scatter(method, args)) {
+            total += (Long) partial;
+        }
+        return total;
+    }
+
+    private List<Object> scatter(Method method, Object[] args) {
+        List<CompletableFuture<Object>> futures = new ArrayList<>(router.getShardCount());
+        for (int shard = 0; shard < router.getShardCount(); shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> invokeInShard(target, method, args), scatterExecutor));
+        }
+        List<Object> results = new ArrayList<>(futures.size());
+        futures.forEach(future -> results.add(future.join()));
+        return results;
+    }
+
+    /**
+     * 单分片操作：在调用方事务中时把事务固定到该分片并直接加入，否则在该分片上单独开启事务
+     */
+    private Object inShard(int shard, Method method, Object[] args) throws Throwable {
+        try {
+            if (ShardContext.bindToTransaction(shard)) {
+                return invokeDelegate(method, args);
+            }
+            return invokeInShard(shard, method, args);
+        } catch (CompletionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 在指定分片的事务中调用底层仓库，没有进行中的事务时开启新事务（跨分片查询的工作线程总是如此）
+     */
+    private Object invokeInShard(int shard, Method method, Object... args) {
+        Supplier<Object> call = () -> transactionTemplate.execute(status -> invokeDelegate(method, args));
+        return ShardContext.call(shard, call);
+    }
+
+    private Object invokeDelegate(Method method, Object[] args) {
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw new CompletionException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
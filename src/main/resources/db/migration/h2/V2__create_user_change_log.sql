@@ -0,0 +1,10 @@
+-- 用户变更日志表（H2，用于测试）
+CREATE TABLE IF NOT EXISTS user_change_log (
+    seq               BIGINT       NOT NULL AUTO_INCREMENT,
+    user_id           BIGINT       NOT NULL,
+    username          VARCHAR(50),
+    previous_username VARCHAR(50),
+    change_type       VARCHAR(10)  NOT NULL,
+    created_at        TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (seq)
+);
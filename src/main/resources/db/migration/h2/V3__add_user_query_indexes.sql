@@ -0,0 +1,6 @@
+-- 与 UserRepository 查询匹配的索引（与 MySQL 版本保持一致）
+CREATE INDEX idx_users_role_created_at ON users (role, created_at DESC, id DESC);
+
+CREATE INDEX idx_users_created_at ON users (created_at DESC, id DESC);
+
+CREATE INDEX idx_user_change_log_created_at ON user_change_log (created_at);
@@ -0,0 +1,14 @@
+-- 注册量预聚合（H2，用于测试，与 MySQL 版本保持一致）
+CREATE TABLE IF NOT EXISTS user_signup_rollup (
+    granularity  VARCHAR(5)  NOT NULL,
+    bucket_start TIMESTAMP   NOT NULL,
+    role         VARCHAR(10) NOT NULL,
+    user_count   BIGINT      NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, role)
+);
+
+CREATE TABLE IF NOT EXISTS rollup_backfill (
+    name         VARCHAR(50)  NOT NULL,
+    completed_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (name)
+);
@@ -0,0 +1,16 @@
+-- 登录事件表（H2，用于测试，与 MySQL 版本保持一致）
+CREATE TABLE IF NOT EXISTS login_events (
+    node        VARCHAR(64)  NOT NULL,
+    seq         BIGINT       NOT NULL,
+    occurred_at TIMESTAMP(3) NOT NULL,
+    username    VARCHAR(152) NOT NULL,
+    outcome     VARCHAR(12)  NOT NULL,
+    client_ip   VARCHAR(48),
+    latency_us  BIGINT       NOT NULL,
+    user_id     BIGINT,
+    PRIMARY KEY (node, seq)
+);
+
+CREATE INDEX idx_login_events_occurred_at ON login_events (occurred_at);
+
+CREATE INDEX idx_login_events_username ON login_events (username, occurred_at);
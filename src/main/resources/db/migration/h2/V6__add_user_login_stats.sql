@@ -0,0 +1,4 @@
+-- 登录统计列（与 MySQL 版本保持一致）
+ALTER TABLE users ADD COLUMN last_login_at TIMESTAMP(6);
+
+ALTER TABLE users ADD COLUMN login_count BIGINT;
@@ -0,0 +1,13 @@
+-- 用户表
+-- 使用 IF NOT EXISTS，兼容此前由 Hibernate ddl-auto 建好的库（baseline-on-migrate）；
+-- 表结构保持与这些库一致，之后新增的列放在后续版本中，已有的库也会执行
+CREATE TABLE IF NOT EXISTS users (
+    id            BIGINT                 NOT NULL AUTO_INCREMENT,
+    username      VARCHAR(50)            NOT NULL,
+    password      VARCHAR(255)           NOT NULL,
+    role          ENUM ('USER', 'ADMIN') NOT NULL,
+    created_at    DATETIME(6),
+    updated_at    DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
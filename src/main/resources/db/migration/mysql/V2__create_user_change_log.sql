@@ -0,0 +1,10 @@
+-- 用户变更日志表，各节点按 seq 增量拉取
+CREATE TABLE IF NOT EXISTS user_change_log (
+    seq               BIGINT                                  NOT NULL AUTO_INCREMENT,
+    user_id           BIGINT                                  NOT NULL,
+    username          VARCHAR(50),
+    previous_username VARCHAR(50),
+    change_type       ENUM ('CREATED', 'UPDATED', 'DELETED') NOT NULL,
+    created_at        DATETIME(6)                             NOT NULL,
+    PRIMARY KEY (seq)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
@@ -0,0 +1,9 @@
+-- 与 UserRepository 查询匹配的索引
+-- findByRoleOrderByCreatedAtDesc / countByRole：按角色过滤后直接按索引顺序返回，计数只扫描索引
+CREATE INDEX idx_users_role_created_at ON users (role, created_at DESC, id DESC);
+
+-- findAllByOrderByCreatedAtDesc：按索引顺序读取，避免 filesort
+CREATE INDEX idx_users_created_at ON users (created_at DESC, id DESC);
+
+-- 变更日志按时间清理
+CREATE INDEX idx_user_change_log_created_at ON user_change_log (created_at);
@@ -0,0 +1,16 @@
+-- 注册量预聚合：按小时、按天和角色计数，与注册、删除在同一事务中增量维护
+-- 删除用户时从其注册时间所在的桶中减去，计数与当前用户表按 created_at 分桶的结果一致
+CREATE TABLE IF NOT EXISTS user_signup_rollup (
+    granularity  ENUM ('HOUR', 'DAY')   NOT NULL,
+    bucket_start DATETIME               NOT NULL,
+    role         ENUM ('USER', 'ADMIN') NOT NULL,
+    user_count   BIGINT                 NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, role)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 一次性回填任务的标记，行存在即表示已完成（与回填在同一事务中写入）
+CREATE TABLE IF NOT EXISTS rollup_backfill (
+    name         VARCHAR(50) NOT NULL,
+    completed_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (name)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
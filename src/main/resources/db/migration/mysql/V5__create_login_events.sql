@@ -0,0 +1,16 @@
+-- 登录事件表：由各节点的本地登录事件日志批量导入，(node, seq) 唯一
+CREATE TABLE IF NOT EXISTS login_events (
+    node        VARCHAR(64)                                               NOT NULL,
+    seq         BIGINT                                                    NOT NULL,
+    occurred_at DATETIME(3)                                               NOT NULL,
+    username    VARCHAR(152)                                              NOT NULL,
+    outcome     ENUM ('SUCCESS', 'BAD_PASSWORD', 'UNKNOWN_USER', 'ERROR') NOT NULL,
+    client_ip   VARCHAR(48),
+    latency_us  BIGINT                                                    NOT NULL,
+    user_id     BIGINT,
+    PRIMARY KEY (node, seq)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE INDEX idx_login_events_occurred_at ON login_events (occurred_at);
+
+CREATE INDEX idx_login_events_username ON login_events (username, occurred_at);
@@ -0,0 +1,5 @@
+-- 登录统计列（由 LoginActivityRecorder 批量回写）
+-- 单独一个版本：此前由 ddl-auto 建好的库在基线之后跳过 V1，仍需补上这两列
+ALTER TABLE users
+    ADD COLUMN last_login_at DATETIME(6),
+    ADD COLUMN login_count   BIGINT;
@@ -0,0 +1,117 @@
+package com.example.loginsystem.benchmark;
+
+import com.example.loginsystem.converter.ApiResponseWriter;
+import com.example.loginsystem.dto.ApiResponse;
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ApiResponse 序列化：应用 ObjectMapper 与 {@link ApiResponseWriter} 对比
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="ApiResponseSerialization -prof gc"
+ * 关注 ops/s 与 gc.alloc.rate.norm（每次操作分配的字节数）。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiResponseSerializationBenchmark {
+
+    @Param({"1", "100"})
+    private int users;
+
+    private ObjectMapper objectMapper;
+    private ApiResponseWriter writer;
+    private ApiResponse<User> single;
+    private ApiResponse<List<User>> list;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setUp() {
+        // 与 application.yml 中的 spring.jackson 配置一致
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .timeZone(TimeZone.getTimeZone("Asia/Shanghai"))
+                .build();
+        writer = new ApiResponseWriter();
+        single = ApiResponse.success(sampleUsers(1).get(0));
+        list = ApiResponse.success(sampleUsers(users));
+        out = new ByteArrayOutputStream(64 * 1024);
+    }
+
+    @Benchmark
+    public int objectMapperSingle() throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, single);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writerSingle() throws IOException {
+        out.reset();
+        write(single);
+        return out.size();
+    }
+
+    @Benchmark
+    public int objectMapperList() throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, list);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writerList() throws IOException {
+        out.reset();
+        write(list);
+        return out.size();
+    }
+
+    private void write(ApiResponse<?> response) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out, JsonEncoding.UTF8)) {
+            writer.write(response, generator);
+        }
+    }
+
+    static List<User> sampleUsers(int count) {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 8, 0, 0, 123456789);
+        List<User> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User("user-" + i, null, i % 10 == 0 ? UserRole.ADMIN : UserRole.USER);
+            user.setId((long) i + 1);
+            user.setCreatedAt(base.plusMinutes(i));
+            user.setUpdatedAt(base.plusMinutes(i).plusSeconds(30));
+            user.setLastLoginAt(base.plusDays(1).plusMinutes(i));
+            user.setLoginCount((long) i * 3);
+            result.add(user);
+        }
+        return result;
+    }
+}
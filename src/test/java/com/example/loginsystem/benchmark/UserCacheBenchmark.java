@@ -0,0 +1,117 @@
+package com.example.loginsystem.benchmark;
+
+import com.example.loginsystem.cache.LongClockCache;
+import com.example.loginsystem.cache.UserSnapshot;
+import com.example.loginsystem.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按ID查询用户的缓存：{@link LongClockCache} + {@link UserSnapshot} 与 ConcurrentHashMap&lt;Long, User&gt; 对比
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="UserCache -prof gc"
+ * 4 个线程并发随机读取已全部缓存的用户；*Copy / *User 为返回可修改的新 User 对象（UserService 的实际用法）。
+ * 两种结构的堆占用在每组参数开始时输出到控制台（footprint: ...）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class UserCacheBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int users;
+
+    private ConcurrentHashMap<Long, User> map;
+    private LongClockCache<UserSnapshot> cache;
+
+    @Setup
+    public void setUp() {
+        long before = usedHeap();
+        map = buildMap();
+        long mapBytes = usedHeap() - before;
+
+        before = usedHeap();
+        cache = buildCache();
+        long cacheBytes = usedHeap() - before;
+
+        System.out.printf("%nfootprint: users=%d concurrentHashMap=%d bytes (%d/user) longClockCache=%d bytes (%d/user)%n",
+                users, mapBytes, mapBytes / users, cacheBytes, cacheBytes / users);
+    }
+
+    @Benchmark
+    public User concurrentHashMapGet() {
+        return map.get(nextId());
+    }
+
+    @Benchmark
+    public User concurrentHashMapGetCopy() {
+        return map.get(nextId()).copy();
+    }
+
+    @Benchmark
+    public UserSnapshot longClockCacheGet() {
+        return cache.get(nextId());
+    }
+
+    @Benchmark
+    public User longClockCacheGetUser() {
+        return cache.get(nextId()).toUser();
+    }
+
+    // 每种结构各自生成样本，测得的占用包含各自引用的全部对象；样本列表在方法返回后即不可达
+    private ConcurrentHashMap<Long, User> buildMap() {
+        ConcurrentHashMap<Long, User> result = new ConcurrentHashMap<>();
+        for (User user : sampleUsers()) {
+            result.put(user.getId(), user);
+        }
+        return result;
+    }
+
+    private LongClockCache<UserSnapshot> buildCache() {
+        // 各分段容量相同，留出余量使全部用户都能缓存
+        LongClockCache<UserSnapshot> result = new LongClockCache<>(users + users / 10, 64);
+        for (User user : sampleUsers()) {
+            result.put(user.getId(), UserSnapshot.of(user, System.nanoTime()));
+        }
+        return result;
+    }
+
+    private List<User> sampleUsers() {
+        List<User> sample = ApiResponseSerializationBenchmark.sampleUsers(users);
+        for (User user : sample) {
+            // 实体缓存会连同 BCrypt 哈希一起保存
+            user.setPassword(String.format("$2a$10$%053d", user.getId()));
+        }
+        return sample;
+    }
+
+    private long nextId() {
+        return ThreadLocalRandom.current().nextInt(users) + 1;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.loginsystem.benchmark;
+
+import com.example.loginsystem.converter.ApiResponseProtobufCodec;
+import com.example.loginsystem.converter.ApiResponseWriter;
+import com.example.loginsystem.dto.ApiResponse;
+import com.example.loginsystem.entity.User;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户列表响应在各传输格式下的编码/解码耗时与负载大小
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="WireFormat -prof gc"
+ * 负载大小在每组参数开始时输出到控制台（payload: ...）。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"json", "cbor", "smile", "protobuf"})
+    private String format;
+
+    @Param({"1", "100"})
+    private int users;
+
+    private ObjectMapper mapper;
+    private ApiResponseWriter writer;
+    private ApiResponseProtobufCodec protobufCodec;
+    private ApiResponse<List<User>> response;
+    private ByteArrayOutputStream out;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS,
+                        DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .timeZone(TimeZone.getTimeZone("Asia/Shanghai"));
+        ObjectMapper jsonMapper = builder.build();
+        mapper = switch (format) {
+            case "cbor" -> builder.factory(new CBORFactory()).build();
+            case "smile" -> builder.factory(new SmileFactory()).build();
+            default -> jsonMapper;
+        };
+        writer = new ApiResponseWriter();
+        protobufCodec = new ApiResponseProtobufCodec(jsonMapper);
+        response = ApiResponse.success(ApiResponseSerializationBenchmark.sampleUsers(users));
+        out = new ByteArrayOutputStream(64 * 1024);
+
+        encode();
+        encoded = out.toByteArray();
+        System.out.printf("%npayload: format=%s users=%d bytes=%d%n", format, users, encoded.length);
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        out.reset();
+        if ("protobuf".equals(format)) {
+            protobufCodec.write(response, out);
+        } else {
+            try (JsonGenerator generator = mapper.createGenerator(out, JsonEncoding.UTF8)) {
+                writer.write(response, generator);
+            }
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        if ("protobuf".equals(format)) {
+            return protobufCodec.read(new ByteArrayInputStream(encoded)).getData();
+        }
+        return mapper.readValue(encoded, Envelope.class).data;
+    }
+
+    /**
+     * 客户端解析用的响应结构（ApiResponse 没有可供反序列化的构造方法）
+     */
+    public static class Envelope {
+        public boolean success;
+        public String message;
+        public List<User> data;
+        public LocalDateTime timestamp;
+        public int code;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.loginsystem.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongClockCacheTests {
+
+    @Test
+    void matchesHashMapUnderRandomPutsAndInvalidations() {
+        // 容量大于键空间，不发生淘汰，结果必须与 HashMap 完全一致
+        LongClockCache<String> cache = new LongClockCache<>(4096, 4);
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                cache.invalidate(key);
+                expected.remove(key);
+            } else {
+                String value = "v" + i;
+                cache.put(key, value);
+                expected.put(key, value);
+            }
+        }
+        assertEquals(expected.size(), cache.size());
+        for (long key = 1; key <= 2000; key++) {
+            assertEquals(expected.get(key), cache.get(key));
+        }
+    }
+
+    @Test
+    void evictsUnreferencedEntriesFirst() {
+        LongClockCache<String> cache = new LongClockCache<>(4, 1);
+        for (long key = 1; key <= 4; key++) {
+            cache.put(key, "v" + key);
+        }
+        cache.get(1);
+        cache.get(3);
+
+        cache.put(5, "v5");
+
+        // 指针扫过 1、3 时只清除访问位，淘汰的是未访问过的 2 或 4 之一
+        assertEquals(4, cache.size());
+        assertEquals("v1", cache.get(1));
+        assertEquals("v3", cache.get(3));
+        assertEquals("v5", cache.get(5));
+        assertTrue(cache.get(2) == null ^ cache.get(4) == null);
+    }
+
+    @Test
+    void rejectsFillStartedBeforeInvalidation() {
+        LongClockCache<String> cache = new LongClockCache<>(16, 1);
+
+        long epoch = cache.epoch(7);
+        // 加载期间另一个线程修改并失效了该用户
+        cache.invalidate(7);
+        assertFalse(cache.putIfUnchanged(7, "stale", epoch));
+        assertNull(cache.get(7));
+
+        assertTrue(cache.putIfUnchanged(7, "fresh", cache.epoch(7)));
+        assertEquals("fresh", cache.get(7));
+
+        epoch = cache.epoch(7);
+        cache.update(7, value -> value + "+login");
+        assertEquals("fresh+login", cache.get(7));
+        assertFalse(cache.putIfUnchanged(7, "stale", epoch));
+        assertEquals("fresh+login", cache.get(7));
+
+        // 更新函数返回null时删除
+        cache.update(7, value -> null);
+        assertNull(cache.get(7));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.loginsystem.cache;
+
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+import com.example.loginsystem.event.LoginActivityFlushedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class UserCacheTests {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    private UserCache userCache;
+
+    // 数据库中的登录次数，每次加载计数
+    private long storedLoginCount;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        userCache = new UserCache();
+        ReflectionTestUtils.setField(userCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(userCache, "maxEntries", 16);
+        ReflectionTestUtils.setField(userCache, "stripes", 1);
+        ReflectionTestUtils.setField(userCache, "ttlSeconds", 60L);
+        userCache.init();
+        storedLoginCount = 5;
+    }
+
+    @Test
+    void returnsCopiesSharingTheLoadedTimestamps() {
+        User loaded = get(1);
+        User cached = get(1);
+
+        assertEquals(1, loads.get());
+        assertNotSame(loaded, cached);
+        assertSame(loaded.getCreatedAt(), cached.getCreatedAt());
+        assertSame(loaded.getUpdatedAt(), cached.getUpdatedAt());
+        assertEquals(BASE.plusHours(1), cached.getUpdatedAt());
+        assertNull(cached.getLastLoginAt());
+        assertNull(cached.getPassword());
+        assertEquals(5L, cached.getLoginCount());
+    }
+
+    @Test
+    void reloadsAfterTtl() {
+        get(1);
+        ReflectionTestUtils.setField(userCache, "ttlNanos", 0L);
+        storedLoginCount = 9;
+
+        assertEquals(9L, get(1).getLoginCount());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void appliesFlushedLoginsOnceWhenLoadedDuringFlush() {
+        // 回写开始前加载：累加
+        get(1);
+        long started = System.nanoTime();
+        storedLoginCount += 2;
+        userCache.onLoginsFlushed(flushed(1, 2, started, System.nanoTime()));
+        assertEquals(7L, get(1).getLoginCount());
+        assertEquals(BASE.plusDays(1), get(1).getLastLoginAt());
+
+        // 回写提交后、事件到达前加载：已包含本批次
+        userCache.clear();
+        started = System.nanoTime();
+        storedLoginCount += 3;
+        long committed = System.nanoTime();
+        get(1);
+        userCache.onLoginsFlushed(flushed(1, 3, started, committed));
+        assertEquals(10L, get(1).getLoginCount());
+
+        // 加载与回写重叠：删除后重新加载
+        userCache.clear();
+        started = System.nanoTime();
+        get(1);
+        storedLoginCount += 4;
+        userCache.onLoginsFlushed(flushed(1, 4, started, System.nanoTime()));
+        int before = loads.get();
+        assertEquals(14L, get(1).getLoginCount());
+        assertEquals(before + 1, loads.get());
+    }
+
+    private User get(long id) {
+        return userCache.get(id, key -> {
+            loads.incrementAndGet();
+            return new User(key, "user" + key, UserRole.USER, BASE, BASE.plusHours(1), null, storedLoginCount);
+        });
+    }
+
+    private static LoginActivityFlushedEvent flushed(long userId, int count, long started, long committed) {
+        return new LoginActivityFlushedEvent(
+                List.of(new LoginActivityFlushedEvent.Login(userId, count, BASE.plusDays(1))), started, committed);
+    }
+}
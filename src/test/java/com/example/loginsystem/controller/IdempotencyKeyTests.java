@@ -0,0 +1,200 @@
+package com.example.loginsystem.controller;
+
+import com.example.loginsystem.dto.RegisterRequest;
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+import com.example.loginsystem.repository.UserRepository;
+import com.example.loginsystem.service.IdempotencyStore;
+import com.example.loginsystem.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 注册接口的 Idempotency-Key 处理
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IdempotencyKeyTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void retryReplaysStoredResponse() throws Exception {
+        String body = "{\"username\":\"idem-user\",\"password\":\"secret123\",\"role\":\"USER\"}";
+        long before = userRepository.count();
+
+        MvcResult first = mockMvc.perform(post("/api/users/register")
+                        .header(IdempotencyStore.HEADER, "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyStore.REPLAYED_HEADER))
+                .andReturn();
+
+        MvcResult retry = mockMvc.perform(post("/api/users/register")
+                        .header(IdempotencyStore.HEADER, "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"))
+                .andReturn();
+
+        assertEquals(first.getResponse().getContentAsString(), retry.getResponse().getContentAsString());
+        assertEquals(before + 1, userRepository.count());
+    }
+
+    @Test
+    void anonymousClientsReusingAKeyDoNotShareResults() throws Exception {
+        mockMvc.perform(post("/api/users/register")
+                        .header(IdempotencyStore.HEADER, "key-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"idem-a\",\"password\":\"secret123\",\"role\":\"USER\"}"))
+                .andExpect(status().isOk());
+
+        // 另一个匿名客户端碰巧使用同一幂等键：按新请求执行，既不重放也不返回 422
+        mockMvc.perform(post("/api/users/register")
+                        .header(IdempotencyStore.HEADER, "key-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"idem-b\",\"password\":\"secret123\",\"role\":\"USER\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyStore.REPLAYED_HEADER));
+
+        assertTrue(userRepository.existsByUsername("idem-a"));
+        assertTrue(userRepository.existsByUsername("idem-b"));
+    }
+
+    @Test
+    void reusedKeyWithDifferentBodyIsRejectedForTheSameUser() throws Exception {
+        User target = userService.register(new RegisterRequest("idem-target", "secret123", UserRole.USER));
+
+        mockMvc.perform(put("/api/users/" + target.getId())
+                        .with(user("admin").roles("ADMIN"))
+                        .header(IdempotencyStore.HEADER, "key-3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"role\":\"ADMIN\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/users/" + target.getId())
+                        .with(user("admin").roles("ADMIN"))
+                        .header(IdempotencyStore.HEADER, "key-3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"role\":\"USER\"}"))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void concurrentRetryWaitsForTheFirstAttempt() throws Exception {
+        String body = "{\"username\":\"idem-slow\",\"password\":\"secret123\",\"role\":\"USER\"}";
+        long before = userRepository.count();
+
+        // 首次请求阻塞在密码加密上，期间到达的重试只能等待
+        UserService target = AopTestUtils.getTargetObject(userService);
+        PasswordEncoder encoder = (PasswordEncoder) ReflectionTestUtils.getField(target, "passwordEncoder");
+        AtomicInteger encodeCalls = new AtomicInteger();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ReflectionTestUtils.setField(target, "passwordEncoder", new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                encodeCalls.incrementAndGet();
+                entered.countDown();
+                await(release);
+                return encoder.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encoder.matches(rawPassword, encodedPassword);
+            }
+        });
+        try {
+            CompletableFuture<MvcResult> first = CompletableFuture.supplyAsync(() -> register("key-4", body));
+            assertTrue(entered.await(10, TimeUnit.SECONDS));
+            double joined = meterRegistry.counter("users.idempotency", "outcome", "joined").count();
+
+            // 等待超过 wait-timeout-ms 仍未完成时返回 409
+            ReflectionTestUtils.setField(idempotencyStore, "waitTimeoutMs", 100L);
+            assertEquals(409, register("key-4", body).getResponse().getStatus());
+
+            ReflectionTestUtils.setField(idempotencyStore, "waitTimeoutMs", 30_000L);
+            CompletableFuture<MvcResult> follower = CompletableFuture.supplyAsync(() -> register("key-4", body));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (meterRegistry.counter("users.idempotency", "outcome", "joined").count() < joined + 2
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            MvcResult leader = first.get(10, TimeUnit.SECONDS);
+            MvcResult joinedResult = follower.get(10, TimeUnit.SECONDS);
+            assertEquals(200, leader.getResponse().getStatus());
+            assertEquals(200, joinedResult.getResponse().getStatus());
+            assertEquals("true", joinedResult.getResponse().getHeader(IdempotencyStore.REPLAYED_HEADER));
+            assertEquals(leader.getResponse().getContentAsString(), joinedResult.getResponse().getContentAsString());
+            assertEquals(joined + 2, meterRegistry.counter("users.idempotency", "outcome", "joined").count());
+            assertEquals(1, encodeCalls.get());
+            assertEquals(before + 1, userRepository.count());
+        } finally {
+            release.countDown();
+            ReflectionTestUtils.setField(target, "passwordEncoder", encoder);
+            ReflectionTestUtils.setField(idempotencyStore, "waitTimeoutMs", 30_000L);
+        }
+    }
+
+    private MvcResult register(String key, String body) {
+        try {
+            return mockMvc.perform(post("/api/users/register")
+                            .header(IdempotencyStore.HEADER, key)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andReturn();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
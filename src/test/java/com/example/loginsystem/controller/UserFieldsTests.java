@@ -0,0 +1,117 @@
+package com.example.loginsystem.controller;
+
+import com.example.loginsystem.dto.RegisterRequest;
+import com.example.loginsystem.entity.UserRole;
+import com.example.loginsystem.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 列表接口的 fields 参数
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserFieldsTests {
+
+    private static final String[] ENDPOINTS = {"/api/users", "/api/users/role/USER", "/api/users/search?keyword=fld"};
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void registerUsers() {
+        for (String username : new String[]{"fld%one", "fld_two", "fldxtwo"}) {
+            if (!userService.existsByUsername(username)) {
+                userService.register(new RegisterRequest(username, "secret1", UserRole.USER));
+            }
+        }
+    }
+
+    @Test
+    void unknownFieldIsRejected() throws Exception {
+        for (String endpoint : ENDPOINTS) {
+            mockMvc.perform(get(endpoint).param("fields", "username,password").with(user("admin").roles("ADMIN")))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.success").value(false));
+        }
+    }
+
+    @Test
+    void idAndCreatedAtAreOmittedUnlessRequested() throws Exception {
+        for (String endpoint : ENDPOINTS) {
+            JsonNode users = fetch(endpoint, "username,role");
+            assertTrue(users.size() >= 3, endpoint);
+            for (JsonNode user : users) {
+                assertTrue(user.has("username"), endpoint);
+                assertTrue(user.has("role"), endpoint);
+                assertFalse(user.has("id"), endpoint);
+                assertFalse(user.has("createdAt"), endpoint);
+                assertFalse(user.has("password"), endpoint);
+            }
+
+            for (JsonNode user : fetch(endpoint, "id,createdAt")) {
+                assertTrue(user.has("id"), endpoint);
+                assertTrue(user.has("createdAt"), endpoint);
+                assertFalse(user.has("username"), endpoint);
+            }
+        }
+    }
+
+    @Test
+    void searchMatchesWildcardsLiterally() throws Exception {
+        for (String fields : new String[]{null, "username"}) {
+            assertEquals(List.of("fld_two"), usernames("fld_", fields));
+            assertEquals(List.of("fld%one"), usernames("fld%", fields));
+            assertEquals(3, usernames("fld", fields).size());
+        }
+    }
+
+    private List<String> usernames(String keyword, String fields) throws Exception {
+        List<String> usernames = new ArrayList<>();
+        fetch("/api/users/search", fields, keyword).forEach(user -> usernames.add(user.get("username").asText()));
+        return usernames;
+    }
+
+    private JsonNode fetch(String endpoint, String fields) throws Exception {
+        return fetch(endpoint, fields, null);
+    }
+
+    private JsonNode fetch(String endpoint, String fields, String keyword) throws Exception {
+        var request = get(endpoint).with(user("admin").roles("ADMIN"));
+        if (keyword != null) {
+            request.param("keyword", keyword);
+        }
+        if (fields != null) {
+            request.param("fields", fields);
+        }
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("data");
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.loginsystem.converter;
+
+import com.example.loginsystem.dto.ApiResponse;
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 手写序列化与应用 ObjectMapper 的输出必须逐字节一致
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ApiResponseWriterTests {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApiResponseWriter writer;
+
+    @Test
+    void singleUserMatchesObjectMapper() throws Exception {
+        assertSameJson(ApiResponse.success("登录成功", user(1L, "alice", LocalDateTime.of(2024, 3, 9, 7, 5, 0, 0))));
+        assertSameJson(ApiResponse.success(user(2L, "b\"ob\\\n", LocalDateTime.of(2024, 12, 31, 23, 59, 59, 120000000))));
+        assertSameJson(ApiResponse.success(new User()));
+    }
+
+    @Test
+    void userListMatchesObjectMapper() throws Exception {
+        List<User> users = new ArrayList<>();
+        users.add(user(3L, "张三", LocalDateTime.of(2023, 1, 1, 0, 0, 0, 1)));
+        users.add(user(4L, "dave", LocalDateTime.of(2025, 6, 15, 12, 30, 45, 987654321)));
+        User withLogin = user(5L, "eve", LocalDateTime.of(2025, 6, 15, 12, 30, 45, 100));
+        withLogin.setLastLoginAt(LocalDateTime.of(2026, 1, 2, 3, 4, 5, 600000));
+        withLogin.setLoginCount(42L);
+        withLogin.setPassword("$2a$10$hash");
+        users.add(withLogin);
+
+        assertSameJson(ApiResponse.success(users));
+        assertSameJson(ApiResponse.success(List.of()));
+    }
+
+    @Test
+    void otherPayloadsMatchObjectMapper() throws Exception {
+        assertSameJson(ApiResponse.success(Boolean.TRUE));
+        assertSameJson(ApiResponse.success("注销成功"));
+        assertSameJson(ApiResponse.error("用户名或密码错误", 401));
+        assertSameJson(ApiResponse.serverError(null));
+        assertSameJson(ApiResponse.success(Map.of("totalUsers", 10L, "adminUsers", 2L)));
+        assertSameJson(ApiResponse.success(List.of("a", "b")));
+    }
+
+    private void assertSameJson(ApiResponse<?> response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.createGenerator(out, JsonEncoding.UTF8)) {
+            writer.write(response, generator);
+        }
+        assertEquals(objectMapper.writeValueAsString(response), out.toString(StandardCharsets.UTF_8));
+    }
+
+    private static User user(Long id, String username, LocalDateTime createdAt) {
+        User user = new User(username, null, UserRole.USER);
+        user.setId(id);
+        user.setCreatedAt(createdAt);
+        user.setUpdatedAt(createdAt.plusSeconds(1));
+        return user;
+    }
+}
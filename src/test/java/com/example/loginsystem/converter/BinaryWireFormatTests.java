@@ -0,0 +1,147 @@
+package com.example.loginsystem.converter;
+
+import com.example.loginsystem.dto.ApiResponse;
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.protobuf.UnknownFieldSet;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * CBOR / Smile / Protobuf 输出
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BinaryWireFormatTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    @Autowired
+    private ApiResponseWriter writer;
+
+    @Autowired
+    private ApiResponseProtobufCodec protobufCodec;
+
+    @Test
+    void jacksonBinaryFormatsMatchObjectMapper() throws Exception {
+        ApiResponse<List<User>> response = ApiResponse.success(List.of(
+                user(1L, "alice", UserRole.ADMIN), user(2L, "鲍勃", UserRole.USER)));
+        for (ObjectMapper mapper : List.<ObjectMapper>of(
+                objectMapperBuilder.factory(new CBORFactory()).build(),
+                objectMapperBuilder.factory(new SmileFactory()).build())) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (JsonGenerator generator = mapper.createGenerator(out, JsonEncoding.UTF8)) {
+                writer.write(response, generator);
+            }
+            assertArrayEquals(mapper.writeValueAsBytes(response), out.toByteArray());
+        }
+    }
+
+    @Test
+    void protobufRoundTrip() throws Exception {
+        User admin = user(2199023255553L, "管理员", UserRole.ADMIN);
+        admin.setLastLoginAt(LocalDateTime.of(2026, 10, 1, 9, 30, 0, 500));
+        admin.setLoginCount(0L);
+        ApiResponse<List<User>> response = ApiResponse.success(List.of(admin, user(7L, "bob", UserRole.USER)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        protobufCodec.write(response, out);
+
+        // 通用线格式解析：字段编号与嵌套结构符合 api_response.proto
+        UnknownFieldSet fields = UnknownFieldSet.parseFrom(out.toByteArray());
+        UnknownFieldSet list = UnknownFieldSet.parseFrom(fields.getField(4).getLengthDelimitedList().get(0));
+        assertEquals(2, list.getField(1).getLengthDelimitedList().size());
+        assertEquals(200, fields.getField(9).getVarintList().get(0));
+
+        ApiResponse<Object> decoded = protobufCodec.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(response.isSuccess(), decoded.isSuccess());
+        assertEquals(response.getMessage(), decoded.getMessage());
+        assertEquals(response.getTimestamp(), decoded.getTimestamp());
+        assertEquals(response.getCode(), decoded.getCode());
+        @SuppressWarnings("unchecked")
+        List<User> users = (List<User>) decoded.getData();
+        assertEquals(2, users.size());
+        for (int i = 0; i < users.size(); i++) {
+            User expected = response.getData().get(i);
+            User actual = users.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getUsername(), actual.getUsername());
+            assertEquals(expected.getRole(), actual.getRole());
+            assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+            assertEquals(expected.getUpdatedAt(), actual.getUpdatedAt());
+            assertEquals(expected.getLastLoginAt(), actual.getLastLoginAt());
+            assertEquals(expected.getLoginCount(), actual.getLoginCount());
+            assertNull(actual.getPassword());
+        }
+    }
+
+    @Test
+    void protobufFallsBackToJsonForOtherData() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        protobufCodec.write(ApiResponse.success(Map.of("totalUsers", 3)), out);
+        ApiResponse<Object> decoded = protobufCodec.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(Map.of("totalUsers", 3), decoded.getData());
+    }
+
+    @Test
+    void acceptHeaderSelectsFormat() throws Exception {
+        mockMvc.perform(get("/api/users/check-username").param("username", "nobody"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+
+        MvcResult cbor = mockMvc.perform(get("/api/users/check-username").param("username", "nobody")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+        assertEquals(false, cborMapper.readTree(cbor.getResponse().getContentAsByteArray()).get("data").asBoolean(true));
+
+        MvcResult protobuf = mockMvc.perform(get("/api/users/check-username").param("username", "nobody")
+                        .accept(ApiResponseProtobufHttpMessageConverter.PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ApiResponseProtobufHttpMessageConverter.PROTOBUF))
+                .andReturn();
+        ApiResponse<Object> decoded = protobufCodec.read(
+                new ByteArrayInputStream(protobuf.getResponse().getContentAsByteArray()));
+        assertEquals(Boolean.FALSE, decoded.getData());
+    }
+
+    private static User user(Long id, String username, UserRole role) {
+        User user = new User(username, null, role);
+        user.setId(id);
+        user.setCreatedAt(LocalDateTime.of(2025, 5, 20, 13, 14, 15, 123456789));
+        user.setUpdatedAt(LocalDateTime.of(2025, 5, 21, 0, 0));
+        return user;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.loginsystem.datagen;
+
+import com.example.loginsystem.sharding.ShardRouter;
+import com.example.loginsystem.sharding.ShardRoutingDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyntheticUserGeneratorTests {
+
+    private static final int ROWS = 5000;
+
+    private JdbcTemplate jdbcTemplate;
+    private SyntheticUserGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:datagen;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").cleanDisabled(false).load().clean();
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        generator = new SyntheticUserGenerator();
+        ReflectionTestUtils.setField(generator, "dataSource", dataSource);
+        ReflectionTestUtils.setField(generator, "passwordEncoder", new BCryptPasswordEncoder(4));
+        ReflectionTestUtils.setField(generator, "shardRouter", beanFactory.getBeanProvider(ShardRouter.class));
+        ReflectionTestUtils.setField(generator, "shardRoutingDataSource",
+                beanFactory.getBeanProvider(ShardRoutingDataSource.class));
+        ReflectionTestUtils.setField(generator, "rows", (long) ROWS);
+        ReflectionTestUtils.setField(generator, "batchRows", 300);
+        ReflectionTestUtils.setField(generator, "threads", 3);
+        ReflectionTestUtils.setField(generator, "passwordPoolSize", 4);
+        ReflectionTestUtils.setField(generator, "prefixCount", 200);
+        ReflectionTestUtils.setField(generator, "zipfExponent", 1.1);
+        ReflectionTestUtils.setField(generator, "adminRatio", 0.1);
+        ReflectionTestUtils.setField(generator, "historyDays", 365);
+        ReflectionTestUtils.setField(generator, "activeRatio", 0.5);
+        ReflectionTestUtils.setField(generator, "seed", 7L);
+    }
+
+    @Test
+    void generatesSkewedRowsAndRestoresIndexes() throws Exception {
+        // 不在迁移脚本中的索引同样按原定义重建
+        jdbcTemplate.execute("CREATE INDEX idx_users_last_login ON users (last_login_at DESC, login_count)");
+        List<String> before = indexColumns();
+
+        assertEquals(ROWS, generator.generate());
+
+        assertEquals(ROWS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class));
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT password) FROM users", Long.class));
+
+        long admins = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE role = 'ADMIN'", Long.class);
+        assertTrue(admins > ROWS * 0.05 && admins < ROWS * 0.15, "admins: " + admins);
+
+        // 最常见的前缀远多于均匀分布下的 ROWS / 200
+        List<Map<String, Object>> top = jdbcTemplate.queryForList(
+                "SELECT SUBSTRING(username, 1, LOCATE('_', username) - 1) AS prefix, COUNT(*) AS n "
+                        + "FROM users GROUP BY prefix ORDER BY n DESC LIMIT 1");
+        assertTrue(((Number) top.get(0).get("n")).longValue() > ROWS / 200 * 10);
+
+        List<String> after = indexColumns();
+        assertEquals(before, after);
+        assertTrue(after.contains("idx_users_role_created_at 2 created_at DESC"));
+        assertTrue(after.contains("idx_users_last_login 1 last_login_at DESC"));
+    }
+
+    private List<String> indexColumns() {
+        return jdbcTemplate.queryForList(
+                "SELECT index_name || ' ' || ordinal_position || ' ' || column_name || ' ' || ordering_specification "
+                        + "FROM information_schema.index_columns WHERE table_name = 'users' "
+                        + "ORDER BY index_name, ordinal_position", String.class);
+    }
+}
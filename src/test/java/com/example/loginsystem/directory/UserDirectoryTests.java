@@ -0,0 +1,151 @@
+package com.example.loginsystem.directory;
+
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+import com.example.loginsystem.event.LoginActivityFlushedEvent;
+import com.example.loginsystem.event.UserChangeEvent;
+import com.example.loginsystem.event.UserInvalidationEvent;
+import com.example.loginsystem.repository.UserField;
+import com.example.loginsystem.sharding.ShardRouter;
+import com.example.loginsystem.sharding.ShardRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserDirectoryTests {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private UserDirectory directory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:directory;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").cleanDisabled(false).load().clean();
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        for (int i = 1; i <= 3000; i++) {
+            jdbcTemplate.update("INSERT INTO users (id, username, password, role, created_at, updated_at, login_count) "
+                            + "VALUES (?, ?, 'hash', ?, ?, ?, ?)",
+                    i, "User_" + i, i % 10 == 0 ? "ADMIN" : "USER", BASE.plusSeconds(i), BASE.plusSeconds(i), i % 7);
+        }
+
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        directory = new UserDirectory();
+        ReflectionTestUtils.setField(directory, "dataSource", dataSource);
+        ReflectionTestUtils.setField(directory, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(directory, "shardRouter", beanFactory.getBeanProvider(ShardRouter.class));
+        ReflectionTestUtils.setField(directory, "shardRoutingDataSource",
+                beanFactory.getBeanProvider(ShardRoutingDataSource.class));
+        directory.load();
+    }
+
+    @Test
+    void loadsAllUsersWithIndexes() {
+        assertEquals(3000, directory.size());
+        assertEquals(300, directory.countByRole(UserRole.ADMIN));
+
+        User user = directory.findByUsername("user_42");
+        assertEquals(42L, user.getId());
+        assertEquals("User_42", user.getUsername());
+        assertEquals(BASE.plusSeconds(42), user.getCreatedAt());
+        assertEquals(0L, user.getLoginCount());
+        assertNull(user.getPassword());
+        assertTrue(directory.existsByUsername("USER_3000"));
+        assertNull(directory.findById(3001));
+
+        List<User> admins = directory.findByRole(UserRole.ADMIN, EnumSet.of(UserField.USERNAME));
+        assertEquals(300, admins.size());
+        assertEquals("User_3000", admins.get(0).getUsername());
+        assertNull(admins.get(0).getId());
+        assertNull(admins.get(0).getCreatedAt());
+
+        assertEquals(List.of("User_2999", "User_2998"),
+                directory.search("99", null).stream().map(User::getUsername).toList().subList(0, 2));
+    }
+
+    @Test
+    void appliesChangesDeletesAndLogins() {
+        User created = new User("Newcomer", "hash", UserRole.USER);
+        created.setId(5000L);
+        directory.onUserChange(UserChangeEvent.created(created));
+        assertEquals("Newcomer", directory.findAll(null).get(0).getUsername());
+
+        // 改角色、删除后列表顺序按需重建
+        User promoted = directory.findById(10);
+        promoted.setRole(UserRole.USER);
+        directory.onUserChange(UserChangeEvent.updated(promoted));
+        directory.onUserChange(UserChangeEvent.deleted(directory.findById(20)));
+        assertEquals(298, directory.countByRole(UserRole.ADMIN));
+        assertEquals(298, directory.findByRole(UserRole.ADMIN, null).size());
+        assertEquals(2702, directory.findByRole(UserRole.USER, null).size());
+        assertNull(directory.findByUsername("user_20"));
+        assertEquals(6, directory.findById(13).getLoginCount());
+
+        long now = System.nanoTime();
+        directory.onLoginsFlushed(new LoginActivityFlushedEvent(
+                List.of(new LoginActivityFlushedEvent.Login(13, 2, BASE.plusDays(1))), now, now));
+        assertEquals(8, directory.findById(13).getLoginCount());
+        assertEquals(BASE.plusDays(1), directory.findById(13).getLastLoginAt());
+
+        // 其他节点的变更：按ID重新读取
+        jdbcTemplate.update("UPDATE users SET username = 'Renamed' WHERE id = 30");
+        directory.onInvalidation(new UserInvalidationEvent(1, UserChangeEvent.Type.UPDATED, 30L, "Renamed", "User_30"));
+        jdbcTemplate.update("DELETE FROM users WHERE id = 40");
+        directory.onInvalidation(new UserInvalidationEvent(2, UserChangeEvent.Type.DELETED, 40L, "User_40", null));
+        assertEquals(30L, directory.findByUsername("renamed").getId());
+        assertFalse(directory.existsByUsername("User_30"));
+        assertNull(directory.findById(40));
+        assertEquals(2999, directory.size());
+    }
+
+    @Test
+    void loginsAreNotCountedTwiceWhenReloadedDuringFlush() {
+        // 回写提交后、事件到达前重新读取：已包含本批次，跳过增量
+        long started = System.nanoTime();
+        jdbcTemplate.update("UPDATE users SET login_count = login_count + 2, last_login_at = ? WHERE id = 13",
+                BASE.plusDays(1));
+        long committed = System.nanoTime();
+        directory.onInvalidation(new UserInvalidationEvent(1, UserChangeEvent.Type.UPDATED, 13L, "User_13", null));
+        directory.onLoginsFlushed(flushed(13, 2, BASE.plusDays(1), started, committed));
+        assertEquals(8, directory.findById(13).getLoginCount());
+        assertEquals(BASE.plusDays(1), directory.findById(13).getLastLoginAt());
+
+        // 重新读取与回写重叠：无法判断是否已包含，再读取一次
+        started = System.nanoTime();
+        directory.onInvalidation(new UserInvalidationEvent(2, UserChangeEvent.Type.UPDATED, 13L, "User_13", null));
+        jdbcTemplate.update("UPDATE users SET login_count = login_count + 3, last_login_at = ? WHERE id = 13",
+                BASE.plusDays(2));
+        committed = System.nanoTime();
+        directory.onLoginsFlushed(flushed(13, 3, BASE.plusDays(2), started, committed));
+        assertEquals(11, directory.findById(13).getLoginCount());
+        assertEquals(BASE.plusDays(2), directory.findById(13).getLastLoginAt());
+
+        // 回写开始前读取的用户正常累加
+        started = System.nanoTime();
+        directory.onLoginsFlushed(flushed(14, 1, BASE.plusDays(3), started, System.nanoTime()));
+        assertEquals(1, directory.findById(14).getLoginCount());
+    }
+
+    private static LoginActivityFlushedEvent flushed(long userId, int count, LocalDateTime lastLoginAt,
+                                                     long started, long committed) {
+        return new LoginActivityFlushedEvent(
+                List.of(new LoginActivityFlushedEvent.Login(userId, count, lastLoginAt)), started, committed);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.loginsystem.journal;
+
+import com.example.loginsystem.dto.LoginEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LoginJournalTests {
+
+    @TempDir
+    Path directory;
+
+    private JdbcTemplate jdbcTemplate;
+    private LoginJournal journal;
+    private LoginEventShipper shipper;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:journal;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").cleanDisabled(false).load().clean();
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        journal = openJournal();
+        shipper = newShipper(journal);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        journal.shutdown();
+    }
+
+    @Test
+    void appendsAndReadsRecentEventsAcrossSegments() {
+        for (int i = 0; i < 10; i++) {
+            journal.append("user" + i, i % 3 == 0 ? LoginOutcome.BAD_PASSWORD : LoginOutcome.SUCCESS,
+                    "10.0.0." + i, 2_500_000, i % 3 == 0 ? null : (long) i);
+        }
+
+        List<LoginEvent> recent = journal.recent(100, null, null);
+        assertEquals(10, recent.size());
+        assertEquals("user9", recent.get(0).getUsername());
+        assertEquals("user0", recent.get(9).getUsername());
+        for (int i = 1; i < recent.size(); i++) {
+            assertEquals(recent.get(i - 1).getSeq() - 1, recent.get(i).getSeq());
+        }
+        LoginEvent latest = recent.get(0);
+        assertEquals(LoginOutcome.BAD_PASSWORD, latest.getOutcome());
+        assertEquals("10.0.0.9", latest.getClientIp());
+        assertEquals(2_500, latest.getLatencyMicros());
+        assertNull(latest.getUserId());
+
+        assertEquals(4, journal.recent(100, null, LoginOutcome.BAD_PASSWORD).size());
+        assertEquals(1, journal.recent(100, "USER5", null).size());
+        assertEquals(3, journal.recent(3, null, null).size());
+    }
+
+    @Test
+    void truncatesLongUsernameOnCharacterBoundary() {
+        String username = "用户".repeat(60);
+        journal.append(username, LoginOutcome.UNKNOWN_USER, null, 1_000, null);
+
+        LoginEvent event = journal.recent(1, null, null).get(0);
+        // 每个汉字 3 字节，152 字节最多保留 50 个
+        assertEquals(username.substring(0, 50), event.getUsername());
+        assertEquals("", event.getClientIp());
+    }
+
+    @Test
+    void shipsSealedSegmentsOnceAndKeepsRecentOnes() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            journal.append("user" + i, LoginOutcome.SUCCESS, "127.0.0.1", 1_000, (long) i + 1);
+        }
+
+        // 4 条一段：两个写满的段已封存，当前段有 2 条
+        assertEquals(8, shipper.ship());
+        assertEquals(8, count());
+        journal.sealActive();
+        assertEquals(2, shipper.ship());
+        assertEquals(0, shipper.ship());
+        assertEquals(10, count());
+        assertEquals(0, journal.unshippedRecords());
+
+        // 导入后只保留最近 6 条记录所在的段
+        assertEquals(2, files(JournalSegment.SHIPPED_SUFFIX));
+        assertEquals(6, journal.recent(100, null, null).size());
+        assertEquals(10, jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT seq) FROM login_events WHERE node = 'test-node'", Long.class));
+    }
+
+    @Test
+    void deletesShippedSegmentsOlderThanRetention() throws IOException, InterruptedException {
+        for (int i = 0; i < 6; i++) {
+            journal.append("user" + i, LoginOutcome.SUCCESS, "127.0.0.1", 1_000, (long) i + 1);
+        }
+        assertEquals(4, shipper.ship());
+        assertEquals(1, files(JournalSegment.SHIPPED_SUFFIX));
+
+        ReflectionTestUtils.setField(journal, "retentionMinutes", 0L);
+        Thread.sleep(5);
+        // 未导入的段不受保留时间限制
+        journal.applyRetention();
+        assertEquals(0, files(JournalSegment.SHIPPED_SUFFIX));
+        assertEquals(2, journal.recent(100, null, null).size());
+
+        journal.sealActive();
+        assertEquals(2, shipper.ship());
+        assertEquals(0, files(JournalSegment.SHIPPED_SUFFIX));
+        assertEquals(0, journal.recent(100, null, null).size());
+        assertEquals(6, count());
+    }
+
+    @Test
+    void continuesSequenceAndShipsLeftoversAfterRestart() throws IOException {
+        journal.append("alice", LoginOutcome.SUCCESS, "127.0.0.1", 1_000, 1L);
+        journal.append("bob", LoginOutcome.BAD_PASSWORD, "127.0.0.1", 1_000, 2L);
+        long lastSeq = journal.recent(1, null, null).get(0).getSeq();
+        journal.shutdown();
+
+        journal = openJournal();
+        shipper = newShipper(journal);
+        journal.append("carol", LoginOutcome.SUCCESS, "127.0.0.1", 1_000, 3L);
+        assertEquals(lastSeq + 1, journal.recent(1, null, null).get(0).getSeq());
+
+        // 上次运行留下的段已封存，直接导入
+        assertEquals(2, shipper.ship());
+        assertEquals(2, count());
+    }
+
+    private LoginJournal openJournal() throws IOException {
+        LoginJournal journal = new LoginJournal();
+        ReflectionTestUtils.setField(journal, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(journal, "directory", directory.toString());
+        ReflectionTestUtils.setField(journal, "segmentRecords", 4);
+        ReflectionTestUtils.setField(journal, "retainedRecords", 6L);
+        ReflectionTestUtils.setField(journal, "retentionMinutes", 60L);
+        ReflectionTestUtils.setField(journal, "sealIntervalMs", 60_000L);
+        journal.start();
+        return journal;
+    }
+
+    private LoginEventShipper newShipper(LoginJournal journal) {
+        LoginEventShipper shipper = new LoginEventShipper();
+        ReflectionTestUtils.setField(shipper, "loginJournal", journal);
+        ReflectionTestUtils.setField(shipper, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(shipper, "shipped", new SimpleMeterRegistry().counter("login.journal.shipped"));
+        ReflectionTestUtils.setField(shipper, "batchSize", 3);
+        ReflectionTestUtils.setField(shipper, "nodeId", "test-node");
+        return shipper;
+    }
+
+    private long count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM login_events", Long.class);
+    }
+
+    private long files(String suffix) throws IOException {
+        try (Stream<Path> list = Files.list(directory)) {
+            return list.filter(path -> path.toString().endsWith(suffix)).count();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.loginsystem.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveLimitTests {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+
+    @Test
+    void rejectsBeyondLimit() {
+        AdaptiveLimit limit = newLimit(3);
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        limit.release(FAST, false);
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    void growsWhileLatencyIsStableAndShrinksWhenItRises() {
+        AdaptiveLimit limit = newLimit(10);
+        for (int round = 0; round < 5; round++) {
+            saturate(limit, FAST);
+        }
+        int grown = limit.getLimit();
+        assertTrue(grown > 10, "延迟稳定且满载时应提高上限，实际: " + grown);
+
+        saturate(limit, SLOW);
+        assertTrue(limit.getLimit() < grown, "延迟上升时应降低上限，实际: " + limit.getLimit());
+    }
+
+    @Test
+    void backsOffOnFailures() {
+        AdaptiveLimit limit = newLimit(100);
+        assertTrue(limit.tryAcquire());
+        limit.release(FAST, true);
+        assertEquals(90, limit.getLimit());
+    }
+
+    @Test
+    void ignoresLatencyWhenUnderused() {
+        AdaptiveLimit limit = newLimit(100);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(i % 2 == 0 ? FAST : SLOW, false);
+        }
+        assertEquals(100, limit.getLimit());
+    }
+
+    /**
+     * 占满所有名额后全部释放，每次释放都结束一个窗口
+     */
+    private static void saturate(AdaptiveLimit limit, long rttNanos) {
+        int permits = limit.getLimit();
+        for (int i = 0; i < permits; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        for (int i = 0; i < permits; i++) {
+            limit.release(rttNanos, false);
+        }
+    }
+
+    private static AdaptiveLimit newLimit(int initial) {
+        return new AdaptiveLimit(initial, 1, 1000, 0.5, 0, 1);
+    }
+}
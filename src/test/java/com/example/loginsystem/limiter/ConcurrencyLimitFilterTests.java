@@ -0,0 +1,121 @@
+package com.example.loginsystem.limiter;
+
+import com.example.loginsystem.converter.ApiResponseWriter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ConcurrencyLimitFilterTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrencyLimitFilter filter;
+    private final AtomicInteger passed = new AtomicInteger();
+    private final FilterChain chain = (request, response) -> passed.incrementAndGet();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new ConcurrencyLimitFilter();
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(filter, "apiResponseWriter", new ApiResponseWriter());
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "initialLimit", 10);
+        ReflectionTestUtils.setField(filter, "minLimit", 2);
+        ReflectionTestUtils.setField(filter, "maxLimit", 200);
+        ReflectionTestUtils.setField(filter, "smoothing", 0.2);
+        ReflectionTestUtils.setField(filter, "windowMs", 60_000L);
+        ReflectionTestUtils.setField(filter, "minWindowSamples", 10);
+        ReflectionTestUtils.setField(filter, "readShedThreshold", 0.8);
+        ReflectionTestUtils.setField(filter, "retryAfterSeconds", 3);
+        filter.init();
+    }
+
+    @Test
+    void rejectsWith503AndRetryAfterWhenGroupIsFull() throws Exception {
+        occupy(EndpointGroup.AUTH, 10);
+
+        MockHttpServletResponse response = perform("POST", "/api/users/login");
+
+        assertEquals(503, response.getStatus());
+        assertEquals("3", response.getHeader(HttpHeaders.RETRY_AFTER));
+        JsonNode body = new ObjectMapper().readTree(response.getContentAsByteArray());
+        assertFalse(body.get("success").asBoolean());
+        assertEquals(503, body.get("code").asInt());
+        assertEquals(0, passed.get());
+        assertEquals(1.0, shed("auth"));
+    }
+
+    @Test
+    void shedsReadsOnlyWhenLoginIsBusy() throws Exception {
+        occupy(EndpointGroup.AUTH, 7);
+        assertEquals(200, perform("GET", "/api/users").getStatus());
+
+        // 登录分组已用 8/10，达到阈值
+        occupy(EndpointGroup.AUTH, 1);
+        assertEquals(503, perform("GET", "/api/users").getStatus());
+        assertEquals(503, perform("POST", "/api/users/lookup").getStatus());
+
+        // 登录本身、注册和管理员写操作不受影响
+        assertEquals(200, perform("POST", "/api/users/login").getStatus());
+        assertEquals(200, perform("POST", "/api/users/register").getStatus());
+        assertEquals(200, perform("DELETE", "/api/users/1").getStatus());
+        assertEquals(4, passed.get());
+        assertEquals(2.0, shed("reads"));
+        assertEquals(0.0, shed("auth"));
+    }
+
+    @Test
+    void registerIsLimitedSeparatelyFromLogin() throws Exception {
+        occupy(EndpointGroup.REGISTER, 10);
+
+        assertEquals(503, perform("POST", "/api/users/register").getStatus());
+        assertEquals(200, perform("POST", "/api/users/login").getStatus());
+        assertEquals(200, perform("GET", "/api/users").getStatus());
+        assertEquals(1.0, shed("register"));
+    }
+
+    @Test
+    void exportsLimitAndInFlightPerGroup() throws Exception {
+        occupy(EndpointGroup.READS, 4);
+        perform("GET", "/actuator/health");
+        perform("GET", "/api/users/events");
+
+        assertEquals(10.0, meterRegistry.get("http.concurrency.limit").tag("group", "reads").gauge().value());
+        assertEquals(4.0, meterRegistry.get("http.concurrency.in_flight").tag("group", "reads").gauge().value());
+        assertEquals(0.0, meterRegistry.get("http.concurrency.in_flight").tag("group", "auth").gauge().value());
+        for (EndpointGroup group : EndpointGroup.values()) {
+            meterRegistry.get("http.concurrency.shed").tag("group", group.name().toLowerCase()).counter();
+        }
+        // 健康检查和事件流不经过限流
+        assertEquals(2, passed.get());
+    }
+
+    private void occupy(EndpointGroup group, int permits) {
+        for (int i = 0; i < permits; i++) {
+            filter.getLimit(group).tryAcquire();
+        }
+    }
+
+    private MockHttpServletResponse perform(String method, String uri) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(method, uri), response, chain);
+        return response;
+    }
+
+    private double shed(String group) {
+        return meterRegistry.get("http.concurrency.shed").tag("group", group).counter().count();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.loginsystem.monitoring;
+
+import org.junit.jupiter.api.function.ThrowingSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SQL次数断言工具
+ * 用法：{@code assertMaxStatements(1, () -> mockMvc.perform(get("/api/users/check-username")...))}
+ */
+public final class QueryCountAssertions {
+
+    private QueryCountAssertions() {
+    }
+
+    /**
+     * 断言操作在当前线程上执行的SQL语句数不超过 max
+     * @return 操作的返回值
+     */
+    public static <T> T assertMaxStatements(int max, ThrowingSupplier<T> action) throws Throwable {
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            T result = action.get();
+            assertTrue(scope.getCount() <= max,
+                    "预期最多执行 " + max + " 条SQL，实际执行了 " + scope.getCount() + " 条");
+            return result;
+        }
+    }
+}
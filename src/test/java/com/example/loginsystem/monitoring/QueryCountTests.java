@@ -0,0 +1,93 @@
+package com.example.loginsystem.monitoring;
+
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+import com.example.loginsystem.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.example.loginsystem.monitoring.QueryCountAssertions.assertMaxStatements;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 接口SQL次数上限
+ * 新增查询导致超出上限时测试失败，需要确认是否为预期的变更
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class QueryCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void checkUsernameIssuesSingleStatement() throws Throwable {
+        assertMaxStatements(1, () -> mockMvc.perform(get("/api/users/check-username").param("username", "nobody"))
+                .andExpect(status().isOk()));
+
+        DistributionSummary summary = meterRegistry.find("http.server.requests.queries")
+                .tag("uri", "/api/users/check-username")
+                .summary();
+        assertNotNull(summary);
+        assertTrue(summary.count() > 0);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void statisticsStaysWithinBudget() throws Throwable {
+        assertMaxStatements(3, () -> mockMvc.perform(get("/api/users/statistics"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void lookupResolvesManyUsersWithOneQueryPerKeyType() throws Throwable {
+        User first = userRepository.save(newUser("lookup-first"));
+        User second = userRepository.save(newUser("lookup-second"));
+        User third = userRepository.save(newUser("lookup-third"));
+
+        String body = String.format("{\"ids\":[%d,999999,%d],\"usernames\":[\"lookup-second\",\"lookup-none\"]}",
+                third.getId(), first.getId());
+        assertMaxStatements(2, () -> mockMvc.perform(post("/api/users/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.users[*].username").value(contains("lookup-third", "lookup-first", "lookup-second")))
+                .andExpect(jsonPath("$.data.users[0].password").doesNotExist())
+                .andExpect(jsonPath("$.data.missingIds").value(contains(999999)))
+                .andExpect(jsonPath("$.data.missingUsernames").value(contains("lookup-none"))));
+
+        mockMvc.perform(get("/api/users/lookup").param("ids", second.getId() + "," + first.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.users[*].username").value(contains("lookup-second", "lookup-first")));
+    }
+
+    private User newUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("x");
+        user.setRole(UserRole.USER);
+        return user;
+    }
+}
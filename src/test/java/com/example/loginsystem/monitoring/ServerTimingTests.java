@@ -0,0 +1,150 @@
+package com.example.loginsystem.monitoring;
+
+import com.example.loginsystem.dto.RegisterRequest;
+import com.example.loginsystem.entity.UserRole;
+import com.example.loginsystem.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 请求追踪：Server-Timing 响应头和导出格式
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ServerTimingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TraceExporter traceExporter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void loginReportsPhaseBreakdownOnlyWithDebugToken() throws Exception {
+        mockMvc.perform(post("/api/users/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"timing-user\",\"password\":\"secret123\",\"role\":\"USER\"}"))
+                .andExpect(status().isOk());
+
+        String login = "{\"username\":\"timing-user\",\"password\":\"secret123\"}";
+        mockMvc.perform(post("/api/users/login")
+                        .header(TracingFilter.DEBUG_HEADER, "test-debug-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(login))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.username").value("timing-user"))
+                .andExpect(header().string(TracingFilter.SERVER_TIMING_HEADER, allOf(
+                        containsString("security;dur="), containsString("bcrypt;dur="),
+                        containsString("db;dur="), containsString("serialize;dur="),
+                        containsString("total;dur="))));
+
+        mockMvc.perform(post("/api/users/login")
+                        .header(TracingFilter.DEBUG_HEADER, "wrong-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(login))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(TracingFilter.SERVER_TIMING_HEADER));
+    }
+
+    @Test
+    void eventStreamIsNotBufferedForDebugRequests() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/users/events")
+                        .header(TracingFilter.DEBUG_HEADER, "test-debug-token")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .with(user("admin").roles("ADMIN")))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().doesNotExist(TracingFilter.SERVER_TIMING_HEADER))
+                .andReturn();
+
+        // 响应体被缓存时推送的事件不会到达客户端
+        userService.register(new RegisterRequest("stream-user", "secret123", UserRole.USER));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!result.getResponse().getContentAsString().contains("stream-user") && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(result.getResponse().getContentAsString().contains("stream-user"));
+        result.getRequest().getAsyncContext().complete();
+    }
+
+    @Test
+    void exportsJsonLinesWithPhases() throws Exception {
+        RequestTrace first = RequestTrace.start("POST");
+        RequestTrace.time(RequestTrace.Phase.BCRYPT, () -> "hash");
+        first.finish("/api/users/login", 401);
+        RequestTrace second = RequestTrace.start("GET");
+        second.finish("/api/users/{id}", 200);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        traceExporter.writeJsonLines(List.of(first, second), out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+
+        JsonNode login = objectMapper.readTree(lines[0]);
+        assertEquals(first.getTraceId(), login.get("traceId").asText());
+        assertEquals(first.getStartedAt().toString(), login.get("start").asText());
+        assertEquals("POST", login.get("method").asText());
+        assertEquals("/api/users/login", login.get("route").asText());
+        assertEquals(401, login.get("status").asInt());
+        assertTrue(login.get("durationMs").isNumber());
+        assertEquals(1, login.at("/phases/bcrypt/count").asInt());
+        assertTrue(login.at("/phases/bcrypt/ms").isNumber());
+
+        JsonNode lookup = objectMapper.readTree(lines[1]);
+        assertEquals("/api/users/{id}", lookup.get("route").asText());
+        assertFalse(lookup.get("phases").has("bcrypt"));
+    }
+
+    @Test
+    void exportsOtlpServerSpanWithPhaseAttributes() throws Exception {
+        RequestTrace trace = RequestTrace.start("POST");
+        RequestTrace.time(RequestTrace.Phase.BCRYPT, () -> "hash");
+        RequestTrace.enterHandler();
+        trace.finish("/api/users/login", 200);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        traceExporter.writeOtlp(List.of(trace), out);
+        JsonNode span = objectMapper.readTree(out.toByteArray())
+                .at("/resourceSpans/0/scopeSpans/0/spans/0");
+        assertEquals(trace.getTraceId(), span.get("traceId").asText());
+        assertEquals(32, span.get("traceId").asText().length());
+        assertEquals("POST /api/users/login", span.get("name").asText());
+        assertEquals(2, span.get("kind").asInt());
+        List<String> keys = span.get("attributes").findValuesAsText("key");
+        assertEquals(List.of("http.request.method", "http.route", "http.response.status_code",
+                "app.phase.security.duration_ms", "app.phase.security.count",
+                "app.phase.bcrypt.duration_ms", "app.phase.bcrypt.count"), keys);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.loginsystem.repository;
+
+import com.example.loginsystem.LoginSystemApplication;
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.service.LoginActivityRecorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 此前由 ddl-auto 创建、没有 Flyway 历史的库：基线之后补齐后续版本，实体校验通过
+ */
+class SchemaMigrationTests {
+
+    private static final String DB_URL =
+            "jdbc:h2:mem:pre_flyway;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Test
+    void migratesDatabaseCreatedBeforeFlyway() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(DB_URL, "sa", ""));
+        // 登录统计列加入之前 ddl-auto 生成的表结构
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT NOT NULL AUTO_INCREMENT, username VARCHAR(50) NOT NULL, "
+                + "password VARCHAR(255) NOT NULL, role VARCHAR(10) NOT NULL, created_at TIMESTAMP(6), "
+                + "updated_at TIMESTAMP(6), PRIMARY KEY (id), CONSTRAINT uk_legacy_username UNIQUE (username))");
+        jdbcTemplate.update("INSERT INTO users (username, password, role, created_at, updated_at) "
+                + "VALUES ('legacy', 'hash', 'USER', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)");
+
+        // ddl-auto: validate 下缺列会导致启动失败
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LoginSystemApplication.class)
+                .profiles("test")
+                .run("--server.port=0", "--spring.datasource.url=" + DB_URL)) {
+            List<String> versions = jdbcTemplate.queryForList("SELECT version FROM flyway_schema_history "
+                    + "WHERE success AND version IS NOT NULL ORDER BY installed_rank", String.class);
+            assertEquals("0", versions.get(0));
+            assertEquals("6", versions.get(versions.size() - 1));
+
+            User legacy = context.getBean(UserRepository.class).findByUsername("legacy").orElseThrow();
+            LoginActivityRecorder recorder = context.getBean(LoginActivityRecorder.class);
+            recorder.record(legacy.getId(), LocalDateTime.now());
+            assertEquals(1, recorder.flush());
+            assertEquals(1L, jdbcTemplate.queryForObject(
+                    "SELECT login_count FROM users WHERE username = 'legacy'", Long.class));
+        }
+    }
+}
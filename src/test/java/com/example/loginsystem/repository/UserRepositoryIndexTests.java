@@ -0,0 +1,135 @@
+package com.example.loginsystem.repository;
+
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 校验 UserRepository 实际生成的SQL命中迁移脚本中的索引
+ * 通过 Hibernate StatementInspector 截获SQL，再在H2上执行 EXPLAIN
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user_index_plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.loginsystem.repository.UserRepositoryIndexTests$CapturingInspector"
+})
+@ActiveProfiles("test")
+class UserRepositoryIndexTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void loadRows() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+        if (count != null && count > 0) {
+            return;
+        }
+        // 数据量足够时优化器才会选择索引
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Timestamp createdAt = Timestamp.valueOf(start.plusMinutes(i));
+            rows.add(new Object[]{"plan-user-" + i, "x", i % 10 == 0 ? "ADMIN" : "USER", createdAt, createdAt});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (username, password, role, created_at, updated_at) VALUES (?, ?, ?, ?, ?)", rows);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void listAllIsReadInIndexOrder() {
+        String plan = explain(() -> userRepository.findAllByOrderByCreatedAtDesc());
+        assertTrue(plan.contains("idx_users_created_at"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    @Test
+    void listByRoleUsesRoleIndex() {
+        String plan = explain(() -> userRepository.findByRoleOrderByCreatedAtDesc(UserRole.ADMIN));
+        assertTrue(plan.contains("idx_users_role_created_at"), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    @Test
+    void countByRoleUsesRoleIndex() {
+        String plan = explain(() -> userRepository.countByRole(UserRole.ADMIN));
+        assertTrue(plan.contains("idx_users_role_created_at"), plan);
+    }
+
+    @Test
+    void findByUsernameUsesUniqueIndex() {
+        String plan = explain(() -> userRepository.findByUsername("plan-user-7"));
+        assertTrue(plan.contains("uk_users_username"), plan);
+    }
+
+    @Test
+    void projectedRoleListIsCoveredByRoleIndex() {
+        EnumSet<UserField> fields = EnumSet.of(UserField.ID, UserField.ROLE);
+        String plan = explain(() -> userRepository.findByRoleProjected(UserRole.ADMIN, fields));
+        assertTrue(plan.contains("idx_users_role_created_at"), plan);
+        assertFalse(plan.contains("password"), plan);
+        assertFalse(plan.contains("username"), plan);
+
+        User first = userRepository.findByRoleProjected(UserRole.ADMIN, fields).get(0);
+        assertEquals(UserRole.ADMIN, first.getRole());
+        assertNull(first.getUsername());
+        assertNull(first.getUpdatedAt());
+    }
+
+    private String explain(Runnable query) {
+        CapturingInspector.lastSql.remove();
+        query.run();
+        String sql = CapturingInspector.lastSql.get();
+        assertNotNull(sql, "未截获到SQL");
+
+        return jdbcTemplate.execute("EXPLAIN " + sql, (PreparedStatement ps) -> {
+            // 参数只影响取值，不影响执行计划
+            for (int i = 1; i <= ps.getParameterMetaData().getParameterCount(); i++) {
+                ps.setString(i, "ADMIN");
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        });
+    }
+
+    /**
+     * 记录当前线程上 Hibernate 最近执行的SQL
+     * 按线程记录，避免截获到后台线程（如变更日志拉取）的SQL
+     */
+    public static class CapturingInspector implements StatementInspector {
+
+        static final ThreadLocal<String> lastSql = new ThreadLocal<>();
+
+        @Override
+        public String inspect(String sql) {
+            lastSql.set(sql);
+            return sql;
+        }
+    }
+}
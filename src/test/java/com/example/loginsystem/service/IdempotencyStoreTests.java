@@ -0,0 +1,67 @@
+package com.example.loginsystem.service;
+
+import com.example.loginsystem.dto.ApiResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IdempotencyStoreTests {
+
+    @Test
+    void serverErrorsAreNotStored() {
+        IdempotencyStore store = newStore(10);
+        AtomicInteger calls = new AtomicInteger();
+
+        ResponseEntity<ApiResponse<String>> failed = store.execute("key", "register", "body", () -> {
+            calls.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ApiResponse.serverError("失败"));
+        });
+        assertEquals(500, failed.getStatusCode().value());
+        assertEquals(0, store.size());
+
+        // 重试重新执行，成功后才保存
+        ResponseEntity<ApiResponse<String>> retried = store.execute("key", "register", "body", () -> {
+            calls.incrementAndGet();
+            return ResponseEntity.ok(ApiResponse.success("ok", "done"));
+        });
+        assertEquals(200, retried.getStatusCode().value());
+        assertNull(retried.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        assertEquals(2, calls.get());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void fullStoreExecutesWithoutRecordingTheKey() {
+        IdempotencyStore store = newStore(1);
+        AtomicInteger calls = new AtomicInteger();
+        store.execute("first", "register", "a", () -> ResponseEntity.ok(ApiResponse.success("ok", "a")));
+        assertEquals(1, store.size());
+
+        for (int i = 0; i < 2; i++) {
+            ResponseEntity<ApiResponse<String>> result = store.execute("second", "register", "b", () -> {
+                calls.incrementAndGet();
+                return ResponseEntity.ok(ApiResponse.success("ok", "b"));
+            });
+            assertNull(result.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        }
+        // 未保存的幂等键不能重放，每次都执行
+        assertEquals(2, calls.get());
+        assertEquals(1, store.size());
+    }
+
+    private static IdempotencyStore newStore(int maxEntries) {
+        IdempotencyStore store = new IdempotencyStore();
+        ReflectionTestUtils.setField(store, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(store, "ttlSeconds", 3600L);
+        ReflectionTestUtils.setField(store, "maxEntries", maxEntries);
+        ReflectionTestUtils.setField(store, "waitTimeoutMs", 1000L);
+        return store;
+    }
+}
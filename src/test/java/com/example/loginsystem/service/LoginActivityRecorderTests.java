@@ -0,0 +1,161 @@
+package com.example.loginsystem.service;
+
+import com.example.loginsystem.event.LoginActivityFlushedEvent;
+import com.example.loginsystem.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginActivityRecorderTests {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    private StubJdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private List<LoginActivityFlushedEvent> published;
+    private LoginActivityRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new StubJdbcTemplate();
+        meterRegistry = new SimpleMeterRegistry();
+        published = new CopyOnWriteArrayList<>();
+        recorder = new LoginActivityRecorder();
+        ReflectionTestUtils.setField(recorder, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(recorder, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(recorder, "shardRouter",
+                new DefaultListableBeanFactory().getBeanProvider(ShardRouter.class));
+        ReflectionTestUtils.setField(recorder, "eventPublisher",
+                (ApplicationEventPublisher) event -> {
+                    if (event instanceof LoginActivityFlushedEvent flushed) {
+                        published.add(flushed);
+                    }
+                });
+        ReflectionTestUtils.setField(recorder, "flushSize", 100);
+        // 定时回写不在测试期间触发
+        ReflectionTestUtils.setField(recorder, "flushIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(recorder, "maxPending", 3);
+        ReflectionTestUtils.setField(recorder, "maxBackoffMs", 60_000L);
+        recorder.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.failing = false;
+        recorder.shutdown();
+    }
+
+    @Test
+    void mergesLoginsPerUser() {
+        recorder.record(1L, T0);
+        recorder.record(1L, T0.plusMinutes(5));
+        recorder.record(1L, T0.plusMinutes(2));
+        recorder.record(2L, T0);
+        assertEquals(4, recorder.getPendingEvents());
+
+        assertEquals(2, recorder.flush());
+
+        assertEquals(1, jdbcTemplate.batches.size());
+        Object[] first = row(1L);
+        assertEquals(3, first[0]);
+        assertEquals(Timestamp.valueOf(T0.plusMinutes(5)), first[1]);
+        assertEquals(1, row(2L)[0]);
+        assertEquals(0, recorder.getPendingEvents());
+        assertEquals(2, published.get(0).getLogins().size());
+        assertTrue(published.get(0).getStartedNanos() - published.get(0).getCommittedNanos() <= 0);
+    }
+
+    @Test
+    void flushesInBackgroundWhenBatchSizeReached() throws InterruptedException {
+        ReflectionTestUtils.setField(recorder, "flushSize", 3);
+        recorder.record(1L, T0);
+        recorder.record(2L, T0);
+        assertTrue(jdbcTemplate.batches.isEmpty());
+
+        recorder.record(1L, T0);
+        for (int i = 0; i < 100 && recorder.getPendingEvents() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, recorder.getPendingEvents());
+        assertEquals(1, jdbcTemplate.batches.size());
+        assertEquals(2, jdbcTemplate.batches.get(0).size());
+    }
+
+    @Test
+    void requeuesFailedBatchAndDropsNewUsersBeyondCap() {
+        jdbcTemplate.failing = true;
+        recorder.record(1L, T0);
+        recorder.record(2L, T0);
+        assertEquals(0, recorder.flush());
+        assertEquals(2, recorder.getPendingEvents());
+
+        // 退避期间达到回写数量也不回写，登录线程不被阻塞
+        ReflectionTestUtils.setField(recorder, "flushSize", 1);
+        recorder.record(1L, T0.plusMinutes(1));
+        recorder.record(3L, T0);
+        // 缓冲区已有 3 个用户，新用户被丢弃，已缓冲的用户仍然合并
+        recorder.record(4L, T0);
+        recorder.record(2L, T0.plusMinutes(1));
+        assertEquals(1, jdbcTemplate.attempts);
+        assertEquals(1.0, meterRegistry.counter("users.login.dropped").count());
+        assertEquals(5, recorder.getPendingEvents());
+
+        jdbcTemplate.failing = false;
+        assertEquals(3, recorder.flush());
+        assertEquals(2, row(1L)[0]);
+        assertEquals(2, row(2L)[0]);
+        assertEquals(1, row(3L)[0]);
+        assertEquals(0, recorder.getPendingEvents());
+    }
+
+    @Test
+    void flushesRemainingLoginsOnShutdown() {
+        recorder.record(7L, T0);
+        recorder.shutdown();
+
+        assertEquals(1, jdbcTemplate.batches.size());
+        assertEquals(7L, jdbcTemplate.batches.get(0).get(0)[2]);
+        assertEquals(0, recorder.getPendingEvents());
+    }
+
+    private Object[] row(long userId) {
+        List<Object[]> rows = jdbcTemplate.batches.get(jdbcTemplate.batches.size() - 1);
+        return rows.stream().filter(row -> row[2].equals(userId)).findFirst().orElseThrow();
+    }
+
+    /**
+     * 记录批量更新，可模拟数据库不可用
+     */
+    private static class StubJdbcTemplate extends JdbcTemplate {
+
+        final List<List<Object[]>> batches = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean failing;
+        volatile int attempts;
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            attempts++;
+            if (failing) {
+                throw new DataAccessResourceFailureException("数据库不可用");
+            }
+            batches.add(new ArrayList<>(batchArgs));
+            return new int[batchArgs.size()];
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.loginsystem.service;
+
+import com.example.loginsystem.dto.RegisterRequest;
+import com.example.loginsystem.dto.SignupTimeseries;
+import com.example.loginsystem.dto.SignupTimeseries.Granularity;
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 注册量预聚合：增量维护与回填
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SignupRollupServiceTests {
+
+    @Autowired
+    private SignupRollupService signupRollupService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void registerDeleteAndRoleChangeAdjustBuckets() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<UserRole, Long> before = since(now);
+
+        User user = userService.register(new RegisterRequest("rollup-user", "secret123", UserRole.USER));
+        User admin = userService.register(new RegisterRequest("rollup-admin", "secret123", UserRole.ADMIN));
+        Map<UserRole, Long> afterRegister = since(now);
+        assertEquals(count(before, UserRole.USER) + 1, count(afterRegister, UserRole.USER));
+        assertEquals(count(before, UserRole.ADMIN) + 1, count(afterRegister, UserRole.ADMIN));
+
+        User promotion = new User();
+        promotion.setRole(UserRole.ADMIN);
+        userService.updateUser(user.getId(), promotion);
+        userService.deleteUser(admin.getId());
+        Map<UserRole, Long> after = since(now);
+        assertEquals(count(before, UserRole.USER), count(after, UserRole.USER));
+        assertEquals(count(before, UserRole.ADMIN) + 1, count(after, UserRole.ADMIN));
+
+        SignupTimeseries hourly = signupRollupService.query(Granularity.HOUR, now.minusHours(1), now.plusHours(1), UserRole.ADMIN);
+        assertTrue(hourly.getTotal() >= 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> signupRollupService.query(Granularity.HOUR, now.minusYears(5), now, null));
+    }
+
+    @Test
+    void backfillRunsOnceAndMatchesUsersTable() {
+        // 绕过 UserService 写入的行只有回填才会计入
+        jdbcTemplate.update("INSERT INTO users (username, password, role, created_at, updated_at) "
+                + "VALUES ('rollup-legacy', 'x', 'USER', '2020-03-15 10:30:00', '2020-03-15 10:30:00')");
+        assertFalse(signupRollupService.backfill());
+
+        jdbcTemplate.update("DELETE FROM rollup_backfill WHERE name = ?", SignupRollupService.BACKFILL_NAME);
+        assertTrue(signupRollupService.backfill());
+
+        SignupTimeseries monthly = signupRollupService.query(Granularity.MONTH,
+                LocalDateTime.of(2020, 1, 1, 0, 0), LocalDateTime.of(2021, 1, 1, 0, 0), null);
+        assertEquals(1, monthly.getBuckets().size());
+        assertEquals(LocalDateTime.of(2020, 3, 1, 0, 0), monthly.getBuckets().get(0).getStart());
+        assertEquals(1, monthly.getTotal());
+
+        long users = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE created_at IS NOT NULL", Long.class);
+        long hourBuckets = jdbcTemplate.queryForObject(
+                "SELECT SUM(user_count) FROM user_signup_rollup WHERE granularity = 'HOUR'", Long.class);
+        long dayBuckets = jdbcTemplate.queryForObject(
+                "SELECT SUM(user_count) FROM user_signup_rollup WHERE granularity = 'DAY'", Long.class);
+        assertEquals(users, hourBuckets);
+        assertEquals(users, dayBuckets);
+    }
+
+    /**
+     * 从 now 所在的一天起两天内的注册量，测试跨过午夜时注册的用户落在第二天
+     */
+    private Map<UserRole, Long> since(LocalDateTime now) {
+        SignupTimeseries daily = signupRollupService.query(Granularity.DAY, now, now.plusDays(2), null);
+        Map<UserRole, Long> byRole = new EnumMap<>(UserRole.class);
+        for (SignupTimeseries.Bucket bucket : daily.getBuckets()) {
+            bucket.getByRole().forEach((role, count) -> byRole.merge(role, count, Long::sum));
+        }
+        return byRole;
+    }
+
+    private long count(Map<UserRole, Long> byRole, UserRole role) {
+        return byRole.getOrDefault(role, 0L);
+    }
+}
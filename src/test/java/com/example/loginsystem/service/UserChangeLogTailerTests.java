@@ -0,0 +1,120 @@
+package com.example.loginsystem.service;
+
+import com.example.loginsystem.LoginSystemApplication;
+import com.example.loginsystem.dto.RegisterRequest;
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+import com.example.loginsystem.event.UserChangeEvent;
+import com.example.loginsystem.event.UserInvalidationEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 两个应用上下文共享同一个H2数据库，模拟多节点部署
+ */
+class UserChangeLogTailerTests {
+
+    private static final String SHARED_DB_URL =
+            "jdbc:h2:mem:change_log_nodes;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+
+    private final List<UserInvalidationEvent> receivedByB = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode(ApplicationListener.<UserInvalidationEvent>forPayload(receivedByB::add));
+    }
+
+    @AfterEach
+    void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @Test
+    void writesOnOneNodeInvalidateTheOther() throws InterruptedException {
+        UserService serviceA = nodeA.getBean(UserService.class);
+
+        User user = serviceA.register(new RegisterRequest("carol", "secret1", UserRole.USER));
+        User rename = new User();
+        rename.setUsername("carol2");
+        serviceA.updateUser(user.getId(), rename);
+        serviceA.deleteUser(user.getId());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (receivedByB.size() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertEquals(3, receivedByB.size());
+        assertEquals(UserChangeEvent.Type.CREATED, receivedByB.get(0).getType());
+
+        UserInvalidationEvent updated = receivedByB.get(1);
+        assertEquals(UserChangeEvent.Type.UPDATED, updated.getType());
+        assertEquals(user.getId(), updated.getUserId());
+        assertEquals("carol2", updated.getUsername());
+        assertEquals("carol", updated.getPreviousUsername());
+
+        UserInvalidationEvent deleted = receivedByB.get(2);
+        assertEquals(UserChangeEvent.Type.DELETED, deleted.getType());
+        assertEquals("carol2", deleted.getUsername());
+        assertTrue(deleted.getSeq() > updated.getSeq());
+    }
+
+    @Test
+    void nodeStartedDuringInFlightTransactionStillSeesIt() throws InterruptedException {
+        JdbcTemplate jdbcTemplate = nodeA.getBean(JdbcTemplate.class);
+        long base = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM user_change_log", Long.class);
+        // base+2 已提交，base+1 的事务尚未提交
+        insertLog(jdbcTemplate, base + 2);
+
+        List<UserInvalidationEvent> receivedByC = new CopyOnWriteArrayList<>();
+        ConfigurableApplicationContext nodeC = startNode(
+                ApplicationListener.<UserInvalidationEvent>forPayload(receivedByC::add));
+        try {
+            insertLog(jdbcTemplate, base + 1);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (receivedByC.stream().noneMatch(event -> event.getSeq() == base + 1)
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+
+            assertTrue(receivedByC.stream().anyMatch(event -> event.getSeq() == base + 1));
+            assertEquals(1, receivedByC.stream().filter(event -> event.getSeq() == base + 2).count());
+            assertEquals(base + 2, nodeC.getBean(UserChangeLogTailer.class).getWatermark());
+        } finally {
+            nodeC.close();
+        }
+    }
+
+    private static void insertLog(JdbcTemplate jdbcTemplate, long seq) {
+        jdbcTemplate.update("INSERT INTO user_change_log (seq, user_id, username, change_type, created_at) "
+                + "VALUES (?, ?, ?, 'UPDATED', CURRENT_TIMESTAMP)", seq, seq, "user" + seq);
+    }
+
+    private ConfigurableApplicationContext startNode(ApplicationListener<?>... listeners) {
+        return new SpringApplicationBuilder(LoginSystemApplication.class)
+                .profiles("test")
+                .listeners(listeners)
+                // 命令行参数优先级高于 application.yml
+                .run("--server.port=0",
+                        "--spring.datasource.url=" + SHARED_DB_URL,
+                        "--app.change-log.poll-interval-ms=100");
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.loginsystem.service;
+
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+import com.example.loginsystem.event.UserChangeEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserEventBroadcasterTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserEventBroadcaster broadcaster;
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    // 下一个订阅使用阻塞的发射器
+    private volatile boolean nextBlocks;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        broadcaster = new UserEventBroadcaster() {
+            @Override
+            SseEmitter newEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter(nextBlocks ? release : null);
+                nextBlocks = false;
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+        ReflectionTestUtils.setField(broadcaster, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(broadcaster, "ringSize", 4);
+        ReflectionTestUtils.setField(broadcaster, "subscriberBuffer", 64);
+        ReflectionTestUtils.setField(broadcaster, "emitterTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(broadcaster, "heartbeatIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(broadcaster, "dispatcherThreads", 1);
+        ReflectionTestUtils.setField(broadcaster, "sendTimeoutMs", 200L);
+        broadcaster.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void replaysEventsAfterLastEventId() throws InterruptedException {
+        RecordingEmitter live = subscribe(null);
+        publish(1L, 2L, 3L);
+        awaitTrue(() -> live.ids().size() == 3);
+        List<Long> ids = live.ids();
+
+        RecordingEmitter resumed = subscribe(ids.get(0));
+        awaitTrue(() -> resumed.ids().size() == 2);
+        assertEquals(ids.subList(1, 3), resumed.ids());
+        assertTrue(resumed.names().stream().allMatch("CREATED"::equals));
+    }
+
+    @Test
+    void sendsResyncWhenLastEventIdFellOutOfRing() throws InterruptedException {
+        RecordingEmitter live = subscribe(null);
+        publish(1L, 2L, 3L, 4L, 5L, 6L);
+        awaitTrue(() -> live.ids().size() == 6);
+        long first = live.ids().get(0);
+
+        // 环形缓冲区只保留最近 4 个事件，第 2 个已被覆盖
+        RecordingEmitter resumed = subscribe(first);
+        awaitTrue(() -> resumed.names().size() == 5);
+        assertEquals("RESYNC", resumed.names().get(0));
+        assertEquals(live.ids().subList(2, 6), resumed.ids());
+    }
+
+    @Test
+    void evictsStuckSubscriberWithoutStallingOthers() throws InterruptedException {
+        nextBlocks = true;
+        RecordingEmitter slow = subscribe(null);
+        RecordingEmitter fast = subscribe(null);
+
+        // 只有一个发送线程，且被慢订阅者占住
+        publish(1L);
+        awaitTrue(() -> slow.blocked);
+        publish(2L, 3L);
+
+        awaitTrue(() -> fast.ids().size() == 3);
+        assertEquals(1.0, meterRegistry.counter("users.events.evictions").count());
+        assertEquals(1, broadcaster.getSubscriberCount());
+
+        release.countDown();
+        awaitTrue(() -> slow.completed);
+    }
+
+    private RecordingEmitter subscribe(Long lastEventId) {
+        broadcaster.subscribe(lastEventId);
+        return emitters.get(emitters.size() - 1);
+    }
+
+    private void publish(Long... userIds) {
+        for (Long id : userIds) {
+            User user = new User("user" + id, "x", UserRole.USER);
+            user.setId(id);
+            broadcaster.onUserChange(UserChangeEvent.created(user));
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 250 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    /**
+     * 记录发送内容的发射器，可模拟写入阻塞的客户端
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> frames = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+        volatile boolean blocked;
+        volatile boolean completed;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (release != null) {
+                blocked = true;
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            frames.add(builder.build().stream()
+                    .map(part -> String.valueOf(part.getData()))
+                    .collect(Collectors.joining()));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        List<Long> ids() {
+            return frames.stream()
+                    .filter(frame -> frame.startsWith("id:") && !frame.contains("event:RESYNC"))
+                    .map(frame -> Long.parseLong(frame.substring(3, frame.indexOf('\n'))))
+                    .toList();
+        }
+
+        List<String> names() {
+            return frames.stream()
+                    .filter(frame -> frame.contains("event:"))
+                    .map(frame -> frame.substring(frame.indexOf("event:") + 6, frame.indexOf('\n', frame.indexOf("event:"))))
+                    .toList();
+        }
+    }
+}
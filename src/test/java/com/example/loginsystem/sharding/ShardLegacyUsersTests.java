@@ -0,0 +1,83 @@
+package com.example.loginsystem.sharding;
+
+import com.example.loginsystem.LoginSystemApplication;
+import com.example.loginsystem.dto.RegisterRequest;
+import com.example.loginsystem.entity.UserRole;
+import com.example.loginsystem.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 在未分片时期的库上启用两个分片：历史ID都在分片0
+ */
+class ShardLegacyUsersTests {
+
+    private final ShardRouter router = new ShardRouter(2);
+
+    @Test
+    void refusesToStartWhenLegacyUserHashesToAnotherShard() {
+        String username = usernameOnShard(1);
+        createLegacyUser("legacy_off_0", username);
+
+        Throwable failure = assertThrows(Exception.class, () -> start("legacy_off").close());
+        while (failure.getCause() != null && !(failure instanceof IllegalStateException)) {
+            failure = failure.getCause();
+        }
+        assertTrue(failure instanceof IllegalStateException, failure.toString());
+        assertTrue(failure.getMessage().contains(username), failure.getMessage());
+    }
+
+    @Test
+    void legacyUsersHashingToShardZeroStayReachable() {
+        String username = usernameOnShard(0);
+        createLegacyUser("legacy_on_0", username);
+
+        try (ConfigurableApplicationContext context = start("legacy_on")) {
+            UserService userService = context.getBean(UserService.class);
+            assertEquals(1L, userService.getUserByUsername(username).getId());
+            assertEquals(username, userService.getUserById(1L).getUsername());
+            assertThrows(RuntimeException.class,
+                    () -> userService.register(new RegisterRequest(username, "secret1", UserRole.USER)));
+        }
+    }
+
+    private String usernameOnShard(int shard) {
+        for (int i = 0; ; i++) {
+            if (router.shardOfUsername("legacy-" + i) == shard) {
+                return "legacy-" + i;
+            }
+        }
+    }
+
+    private void createLegacyUser(String database, String username) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(url(database), "sa", ""));
+        // 未引入 Flyway 之前 ddl-auto 生成的表结构
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT NOT NULL AUTO_INCREMENT, username VARCHAR(50) NOT NULL, "
+                + "password VARCHAR(255) NOT NULL, role VARCHAR(10) NOT NULL, created_at TIMESTAMP(6), "
+                + "updated_at TIMESTAMP(6), PRIMARY KEY (id), CONSTRAINT uk_legacy_username UNIQUE (username))");
+        jdbcTemplate.update("INSERT INTO users (username, password, role, created_at, updated_at) "
+                + "VALUES (?, 'hash', 'USER', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", username);
+    }
+
+    private ConfigurableApplicationContext start(String prefix) {
+        return new SpringApplicationBuilder(LoginSystemApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--app.sharding.enabled=true",
+                        "--app.sharding.shards[0].url=" + url(prefix + "_0"),
+                        "--app.sharding.shards[0].username=sa",
+                        "--app.sharding.shards[1].url=" + url(prefix + "_1"),
+                        "--app.sharding.shards[1].username=sa");
+    }
+
+    private static String url(String database) {
+        return "jdbc:h2:mem:" + database + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.loginsystem.sharding;
+
+import com.example.loginsystem.dto.RegisterRequest;
+import com.example.loginsystem.entity.User;
+import com.example.loginsystem.entity.UserRole;
+import com.example.loginsystem.repository.UserProjectionRepository;
+import com.example.loginsystem.repository.UserRepository;
+import com.example.loginsystem.service.LoginActivityRecorder;
+import com.example.loginsystem.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 三个内存H2数据库组成的分片环境
+ */
+@SpringBootTest(properties = {
+        "app.sharding.enabled=true",
+        "app.sharding.shards[0].url=jdbc:h2:mem:user_shard_0;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.sharding.shards[0].username=sa",
+        "app.sharding.shards[1].url=jdbc:h2:mem:user_shard_1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.sharding.shards[1].username=sa",
+        "app.sharding.shards[2].url=jdbc:h2:mem:user_shard_2;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.sharding.shards[2].username=sa"
+})
+@ActiveProfiles("test")
+class ShardedUserRepositoryTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private LoginActivityRecorder loginActivityRecorder;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @AfterEach
+    void cleanUp() {
+        userService.getAllUsers().forEach(user -> userService.deleteUser(user.getId()));
+    }
+
+    @Test
+    void usersAreStoredOnTheShardOfTheirUsername() {
+        List<User> users = registerUsers(12, UserRole.USER);
+
+        for (User user : users) {
+            int shard = shardRouter.shardOfUsername(user.getUsername());
+            assertEquals(shard, shardRouter.shardOfId(user.getId()));
+            assertEquals(1, countOnShard(shard, user.getUsername()));
+
+            assertEquals(user.getUsername(), userService.getUserById(user.getId()).getUsername());
+            assertEquals(user.getId(), userService.getUserByUsername(user.getUsername()).getId());
+        }
+        // 12个用户应分散到多个分片
+        assertTrue(users.stream().map(u -> shardRouter.shardOfId(u.getId())).distinct().count() > 1);
+        assertNull(userService.getUserById(Long.MAX_VALUE));
+    }
+
+    @Test
+    void scatterGatherMergesAllShardsNewestFirst() {
+        registerUsers(9, UserRole.USER);
+        registerUsers(3, UserRole.ADMIN);
+
+        List<User> all = userService.getAllUsers();
+        assertEquals(12, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertFalse(all.get(i).getCreatedAt().isAfter(all.get(i - 1).getCreatedAt()));
+        }
+
+        assertEquals(3, userService.countUsersByRole(UserRole.ADMIN));
+        assertEquals(9, userService.countUsersByRole(UserRole.USER));
+        assertEquals(3, userService.getUsersByRole(UserRole.ADMIN).size());
+        assertEquals(12, userService.searchUsers("shard").size());
+        assertEquals(3, userService.searchUsers("shard-admin").size());
+    }
+
+    @Test
+    void loginActivityIsFlushedToTheOwningShard() {
+        List<User> users = registerUsers(6, UserRole.USER);
+        for (User user : users) {
+            assertNotNull(userService.login(user.getUsername(), "secret1"));
+        }
+        loginActivityRecorder.flush();
+
+        for (User user : users) {
+            int shard = shardRouter.shardOfId(user.getId());
+            Long loginCount = shardJdbc(shard).queryForObject(
+                    "SELECT login_count FROM users WHERE id = ?", Long.class, user.getId());
+            assertEquals(1L, loginCount);
+        }
+    }
+
+    @Test
+    void renameAcrossShardsIsRejected() {
+        User user = registerUsers(1, UserRole.USER).get(0);
+        int shard = shardRouter.shardOfId(user.getId());
+
+        String otherShardName = null;
+        for (int i = 0; otherShardName == null; i++) {
+            if (shardRouter.shardOfUsername("renamed-" + i) != shard) {
+                otherShardName = "renamed-" + i;
+            }
+        }
+        User rename = new User();
+        rename.setUsername(otherShardName);
+        assertThrows(RuntimeException.class, () -> userService.updateUser(user.getId(), rename));
+        assertEquals(user.getUsername(), userService.getUserById(user.getId()).getUsername());
+        // 失败的更新在同一分片事务中回滚，没有留下变更日志
+        assertEquals(0, shardJdbc(shard).queryForObject(
+                "SELECT COUNT(*) FROM user_change_log WHERE user_id = ? AND change_type = 'UPDATED'",
+                Integer.class, user.getId()));
+    }
+
+    @Test
+    void changeLogAndRollupAreWrittenOnTheUsersShard() {
+        List<User> users = registerUsers(9, UserRole.USER);
+        User promoted = users.get(0);
+        User role = new User();
+        role.setRole(UserRole.ADMIN);
+        userService.updateUser(promoted.getId(), role);
+
+        for (User user : users) {
+            int shard = shardRouter.shardOfId(user.getId());
+            assertEquals(1, shardJdbc(shard).queryForObject(
+                    "SELECT COUNT(*) FROM user_change_log WHERE user_id = ? AND change_type = 'CREATED'",
+                    Integer.class, user.getId()));
+        }
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            JdbcTemplate jdbc = shardJdbc(shard);
+            for (UserRole each : UserRole.values()) {
+                assertEquals(jdbc.queryForObject("SELECT COUNT(*) FROM users WHERE role = ?", Long.class, each.name()),
+                        jdbc.queryForObject("SELECT COALESCE(SUM(user_count), 0) FROM user_signup_rollup "
+                                + "WHERE granularity = 'DAY' AND role = ?", Long.class, each.name()));
+            }
+        }
+    }
+
+    @Test
+    void everyRepositoryMethodIsRouted() {
+        List<Method> methods = new ArrayList<>(List.of(UserRepository.class.getDeclaredMethods()));
+        methods.addAll(List.of(UserProjectionRepository.class.getDeclaredMethods()));
+        for (Method method : methods) {
+            assertNotNull(ShardedUserRepository.routeOf(method), "分片模式下未路由的仓库方法: " + method);
+        }
+    }
+
+    private List<User> registerUsers(int count, UserRole role) {
+        List<User> users = new ArrayList<>();
+        int offset = userService.getAllUsers().size();
+        for (int i = 0; i < count; i++) {
+            String username = (role == UserRole.ADMIN ? "shard-admin-" : "shard-user-") + (offset + i);
+            users.add(userService.register(new RegisterRequest(username, "secret1", role)));
+        }
+        return users;
+    }
+
+    private int countOnShard(int shard, String username) {
+        Integer count = shardJdbc(shard).queryForObject(
+                "SELECT COUNT(*) FROM users WHERE username = ?", Integer.class, username);
+        return count == null ? 0 : count;
+    }
+
+    private JdbcTemplate shardJdbc(int shard) {
+        return new JdbcTemplate(shardRoutingDataSource.getShard(shard));
+    }
+}